@@ -0,0 +1,91 @@
+package com.shanhy.spring.ws.reactor;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+
+/**
+ * 访问日志格式，在后台线程中将 {@link AccessLogRecord} 格式化为一行文本
+ *
+ * @author shanhy
+ * @date 2026-10-18 15:14
+ */
+@FunctionalInterface
+public interface AccessLogFormat {
+
+    /**
+     * Space separated fields: time, client address, operation, status, fault code, bytes in, bytes out and latency in
+     * microseconds. Unknown values are written as {@code -}.
+     */
+    AccessLogFormat TEXT = (record, builder) -> {
+        builder.append(Instant.ofEpochMilli(record.getTimestamp())).append(' ');
+        appendAddress(record.getClientAddress(), builder);
+        builder.append(' ').append(record.getOperation() != null ? record.getOperation() : "-")
+                .append(' ').append(record.getStatus())
+                .append(' ').append(record.getFaultCode() != null ? record.getFaultCode() : "-")
+                .append(' ');
+        appendCount(record.getBytesIn(), builder);
+        builder.append(' ');
+        appendCount(record.getBytesOut(), builder);
+        builder.append(' ').append(record.getLatencyNanos() / 1000);
+    };
+
+    /**
+     * One JSON object per line.
+     */
+    AccessLogFormat JSON = (record, builder) -> {
+        builder.append("{\"time\":\"").append(Instant.ofEpochMilli(record.getTimestamp())).append("\",\"client\":\"");
+        appendAddress(record.getClientAddress(), builder);
+        builder.append("\",\"operation\":");
+        appendJsonString(record.getOperation(), builder);
+        builder.append(",\"status\":").append(record.getStatus()).append(",\"faultCode\":");
+        appendJsonString(record.getFaultCode(), builder);
+        builder.append(",\"bytesIn\":").append(record.getBytesIn())
+                .append(",\"bytesOut\":").append(record.getBytesOut())
+                .append(",\"latencyMicros\":").append(record.getLatencyNanos() / 1000).append('}');
+    };
+
+    /**
+     * Appends the given record to the builder, without a line separator.
+     *
+     * @param record the record
+     * @param builder the builder to append to
+     */
+    void format(AccessLogRecord record, StringBuilder builder);
+
+    static void appendAddress(InetSocketAddress address, StringBuilder builder) {
+        if (address == null) {
+            builder.append('-');
+        } else if (address.getAddress() != null) {
+            builder.append(address.getAddress().getHostAddress());
+        } else {
+            builder.append(address.getHostString());
+        }
+    }
+
+    static void appendCount(long count, StringBuilder builder) {
+        if (count < 0) {
+            builder.append('-');
+        } else {
+            builder.append(count);
+        }
+    }
+
+    static void appendJsonString(String value, StringBuilder builder) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
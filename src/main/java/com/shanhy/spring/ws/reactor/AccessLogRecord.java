@@ -0,0 +1,93 @@
+package com.shanhy.spring.ws.reactor;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 访问日志记录，作为 {@link SoapAccessLog} 环形缓冲区中预分配的槽位被重复使用
+ *
+ * @author shanhy
+ * @date 2026-10-18 15:10
+ */
+public final class AccessLogRecord {
+
+    /**
+     * Sequence of the record currently held by this slot, plus one. Written last by the producer, so that the consumer
+     * sees all fields once it sees the sequence.
+     */
+    volatile long published;
+
+    long timestamp;
+
+    String operation;
+
+    int status;
+
+    String faultCode;
+
+    long bytesIn;
+
+    long bytesOut;
+
+    long latencyNanos;
+
+    InetSocketAddress clientAddress;
+
+    AccessLogRecord() {
+    }
+
+    /**
+     * Returns the time the call completed, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the operation key, the {@code SOAPAction} or the request path.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the fault code, or {@code null} if the response is not a fault.
+     */
+    public String getFaultCode() {
+        return faultCode;
+    }
+
+    /**
+     * Returns the number of request bytes, or {@code -1} if unknown.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * Returns the number of response bytes, or {@code -1} if unknown.
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Returns the time between receiving the request and completing the response, in nanoseconds.
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Returns the client address, or {@code null} if unknown.
+     */
+    public InetSocketAddress getClientAddress() {
+        return clientAddress;
+    }
+}
@@ -0,0 +1,256 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 有界对象池，用于复用非线程安全、但创建成本较高的对象（如 JAXB Marshaller、DocumentBuilder）
+ *
+ * <p>Objects are leased per use rather than bound to a thread, so a lease may be released on another thread than the
+ * one that acquired it. When the pool is empty a new object is created; when it is full a returned object is
+ * discarded. The pool bounds the number of idle objects it retains; the number of objects leased at once is bounded by
+ * the concurrency of the callers only, as a lease never waits for a returned object.
+ *
+ * <p>With {@linkplain #setLeakDetection leak detection} enabled, a lease that is garbage collected without having been
+ * closed is logged together with the stack that acquired it, and counted in {@link #getLeaked()}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 11:20
+ */
+public class BoundedObjectPool<T> {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final String name;
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> reset;
+
+    private final BlockingQueue<T> idle;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder discarded = new LongAdder();
+
+    private final LongAdder leaked = new LongAdder();
+
+    /**
+     * Enqueues the trackers of leases that became unreachable; closed leases clear theirs first.
+     */
+    private final ReferenceQueue<Lease<?>> unreachableLeases = new ReferenceQueue<>();
+
+    /**
+     * Keeps the trackers of open leases reachable until their lease is closed or collected.
+     */
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean leakDetection = false;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param name the name of the pool, used in log messages
+     * @param maxIdle the maximum number of idle objects kept
+     * @param factory creates new objects on a miss
+     * @param reset resets an object before it is returned to the pool, may be {@code null}
+     */
+    public BoundedObjectPool(String name, int maxIdle, Supplier<T> factory, Consumer<T> reset) {
+        Assert.isTrue(maxIdle > 0, "'maxIdle' must be positive");
+        Assert.notNull(factory, "'factory' must not be null");
+        this.name = name;
+        this.factory = factory;
+        this.reset = reset;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Sets whether leases that are never closed are detected. Every lease then records the stack that acquired it,
+     * which is logged once the lease has been garbage collected without being closed. Defaults to {@code false}.
+     */
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Leases an object from the pool. The lease must be closed once the object is no longer used.
+     *
+     * @return the lease
+     */
+    public Lease<T> lease() {
+        reportLeaks();
+        T object = idle.poll();
+        if (object != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            object = factory.get();
+        }
+        outstanding.incrementAndGet();
+        Lease<T> lease = new Lease<>(this, object);
+        if (leakDetection) {
+            lease.tracker = new LeakTracker(lease, unreachableLeases);
+            trackers.add(lease.tracker);
+        }
+        return lease;
+    }
+
+    private void release(Lease<T> lease) {
+        outstanding.decrementAndGet();
+        LeakTracker tracker = lease.tracker;
+        if (tracker != null) {
+            trackers.remove(tracker);
+            tracker.clear();
+        }
+        T object = lease.object;
+        try {
+            if (reset != null) {
+                reset.accept(object);
+            }
+        } catch (RuntimeException ex) {
+            discarded.increment();
+            return;
+        }
+        if (!idle.offer(object)) {
+            discarded.increment();
+        }
+    }
+
+    /**
+     * Logs, and returns the number of, leases that were garbage collected without being closed since the last call.
+     * Also called on every lease, so calling it is only needed to report leaks of a pool that is no longer used.
+     *
+     * @return the number of leases reported
+     */
+    public int reportLeaks() {
+        int leaks = 0;
+        Reference<? extends Lease<?>> reference;
+        while ((reference = unreachableLeases.poll()) != null) {
+            LeakTracker tracker = (LeakTracker) reference;
+            if (trackers.remove(tracker)) {
+                leaks++;
+                leaked.increment();
+                outstanding.decrementAndGet();
+                logger.warn("Pool '" + name + "': " + tracker.objectType + " leased by thread '" + tracker.threadName +
+                        "' was garbage collected without being returned", tracker.acquisitionStack);
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Returns the number of leases served from an idle object.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of leases that required creating a new object.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of returned objects that were dropped because the pool was full or could not be reset.
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    /**
+     * Returns the number of leases that were garbage collected without being closed. Only counted with
+     * {@linkplain #setLeakDetection leak detection} enabled.
+     */
+    public long getLeaked() {
+        return leaked.sum();
+    }
+
+    /**
+     * Returns the number of leases that have not been closed yet. Without leak detection, this includes leases that
+     * were dropped without being closed.
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the number of idle objects in the pool.
+     */
+    public int getIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Remembers where a lease was acquired, without keeping the lease reachable.
+     */
+    private static final class LeakTracker extends PhantomReference<Lease<?>> {
+
+        private final String objectType;
+
+        private final String threadName = Thread.currentThread().getName();
+
+        private final Throwable acquisitionStack = new Throwable("Lease acquired here");
+
+        private LeakTracker(Lease<?> lease, ReferenceQueue<Lease<?>> queue) {
+            super(lease, queue);
+            this.objectType = lease.object.getClass().getName();
+        }
+    }
+
+    /**
+     * A single lease of a pooled object.
+     */
+    public static final class Lease<T> implements AutoCloseable {
+
+        private final BoundedObjectPool<T> pool;
+
+        private final T object;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private LeakTracker tracker;
+
+        private Lease(BoundedObjectPool<T> pool, T object) {
+            this.pool = pool;
+            this.object = object;
+        }
+
+        /**
+         * Returns the leased object.
+         */
+        public T get() {
+            Assert.state(!closed.get(), "Lease has already been closed");
+            return object;
+        }
+
+        /**
+         * Returns the leased object to the pool. Closing a lease more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                pool.release(this);
+            }
+        }
+    }
+}
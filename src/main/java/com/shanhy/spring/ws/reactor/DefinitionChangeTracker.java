@@ -0,0 +1,158 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.xml.transform.Source;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * WSDL/XSD 定义文件变更跟踪器，基于 WatchService 在后台维护最后修改时间，请求处理时不再访问文件系统
+ *
+ * @author shanhy
+ * @date 2026-10-18 13:02
+ */
+public class DefinitionChangeTracker implements DisposableBean {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    /**
+     * Keys are WSDL definitions or XSD schemas, values are their last modified dates.
+     */
+    private final Map<Object, Long> lastModifiedDates = new ConcurrentHashMap<>();
+
+    /**
+     * Keys are watched files, values are the definitions read from them.
+     */
+    private final Map<Path, Set<Object>> definitionsByFile = new ConcurrentHashMap<>();
+
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+
+    private final CopyOnWriteArrayList<Consumer<Object>> listeners = new CopyOnWriteArrayList<>();
+
+    private WatchService watchService;
+
+    /**
+     * Registers a definition. File-based sources are watched for changes; for other sources the last modified date is
+     * recorded as {@code -1}.
+     *
+     * @param definition the {@code WsdlDefinition} or {@code XsdSchema}
+     * @param source the source of the definition
+     */
+    public synchronized void register(Object definition, Source source) throws IOException {
+        File file = source != null ? LastModifiedHelper.getFile(source) : null;
+        if (file == null) {
+            lastModifiedDates.put(definition, -1L);
+            return;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        lastModifiedDates.put(definition, file.exists() ? file.lastModified() : -1L);
+        definitionsByFile.computeIfAbsent(path, p -> ConcurrentHashMap.newKeySet()).add(definition);
+
+        Path directory = path.getParent();
+        if (directory != null && watchedDirectories.add(directory)) {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                WatchService service = watchService;
+                Thread watchThread = new Thread(() -> watch(service), "definition-change-tracker");
+                watchThread.setDaemon(true);
+                watchThread.start();
+            }
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Watching [" + directory + "] for definition changes");
+            }
+        }
+    }
+
+    /**
+     * Adds a listener that is notified with the definition whenever its file changes. The new last modified date is
+     * only published once all listeners have run.
+     */
+    public void addListener(Consumer<Object> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the tracked last modified date of the given definition.
+     *
+     * @param definition the {@code WsdlDefinition} or {@code XsdSchema}
+     * @return the last modified date, {@code -1} if unknown, or {@code null} if the definition is not registered
+     */
+    public Long getLastModified(Object definition) {
+        return lastModifiedDates.get(definition);
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() != StandardWatchEventKinds.OVERFLOW) {
+                        fileChanged(directory.resolve((Path) event.context()));
+                    } else {
+                        for (Path path : definitionsByFile.keySet()) {
+                            fileChanged(path);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // destroyed
+        }
+    }
+
+    private void fileChanged(Path path) {
+        Set<Object> definitions = definitionsByFile.get(path);
+        if (definitions == null) {
+            return;
+        }
+        File file = path.toFile();
+        long lastModified = file.exists() ? file.lastModified() : -1L;
+        for (Object definition : definitions) {
+            Long previous = lastModifiedDates.get(definition);
+            if (previous != null && previous == lastModified) {
+                continue;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("Detected change of [" + path + "], invalidating [" + definition + "]");
+            }
+            for (Consumer<Object> listener : listeners) {
+                try {
+                    listener.accept(definition);
+                } catch (RuntimeException ex) {
+                    logger.warn("Definition change listener failed for [" + definition + "]", ex);
+                }
+            }
+            // published only once the caches are cleared, so the new date is never served with the old content
+            lastModifiedDates.put(definition, lastModified);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.shanhy.spring.ws.reactor;
+
+import com.shanhy.spring.ws.reactor.SoapFaultCatalog.TransportFault;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大请求体落盘：超过阈值的请求体以 NIO FileChannel 写入临时文件，读取时使用内存映射，
+ * 所有临时文件共享一个磁盘预算，请求结束时删除文件
+ *
+ * <p>Spool files are opened with {@link StandardOpenOption#DELETE_ON_CLOSE}. By default every spool writes to a new
+ * directory of its own in {@code java.io.tmpdir}, deleted by {@link #destroy()}. Files left behind by a crashed
+ * process are only deleted in a {@linkplain #setDirectory directory configured explicitly}, by
+ * {@link #afterPropertiesSet()}, as a shared directory may hold the files of other processes.
+ *
+ * @author shanhy
+ * @date 2026-10-18 19:50
+ */
+public class DiskSpool implements InitializingBean, DisposableBean {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private static final String FILE_PREFIX = "soap-spool-";
+
+    private static final String FILE_SUFFIX = ".tmp";
+
+    private final long threshold;
+
+    private final AtomicLong spooled = new AtomicLong();
+
+    private final AtomicInteger openFiles = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private Path directory;
+
+    private boolean directoryCreated;
+
+    private long maxSpoolSize = Long.MAX_VALUE;
+
+    /**
+     * Creates a new spool.
+     *
+     * @param threshold the body size in bytes above which a request is spooled to disk
+     */
+    public DiskSpool(long threshold) {
+        Assert.isTrue(threshold >= 0, "'threshold' must not be negative");
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sets the directory holding the spool files. Spool files left in it by a previous process are deleted on
+     * initialization, so it must not be shared with another running process. Defaults to a new directory in
+     * {@code java.io.tmpdir}.
+     */
+    public synchronized void setDirectory(Path directory) {
+        Assert.notNull(directory, "'directory' must not be null");
+        this.directory = directory;
+        this.directoryCreated = false;
+    }
+
+    /**
+     * Returns the directory holding the spool files, or {@code null} if none was configured and the spool has been
+     * neither initialized nor used yet.
+     */
+    public synchronized Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the number of bytes all spool files may hold at once; requests that would exceed it are rejected with
+     * 503: Service Unavailable. Unlimited by default.
+     */
+    public void setMaxSpoolSize(long maxSpoolSize) {
+        this.maxSpoolSize = maxSpoolSize;
+    }
+
+    /**
+     * Deletes spool files left in the configured directory by a previous process, or creates the directory of this
+     * spool if none was configured.
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Path directory;
+        synchronized (this) {
+            if (this.directory == null) {
+                resolveDirectory();
+                return;
+            }
+            directory = this.directory;
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path path : stale) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete stale spool file [" + path + "]", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the directory created for this spool, if it is empty. Files still open are deleted once closed.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (directoryCreated) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException ex) {
+                logger.warn("Could not delete spool directory [" + directory + "]", ex);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a body of the given size is spooled to disk.
+     */
+    public boolean exceedsThreshold(long size) {
+        return size > threshold;
+    }
+
+    /**
+     * Returns the number of bytes currently spooled.
+     */
+    public long getSpooled() {
+        return spooled.get();
+    }
+
+    /**
+     * Returns the number of spool files currently open.
+     */
+    public int getOpenFiles() {
+        return openFiles.get();
+    }
+
+    /**
+     * Returns the number of requests rejected because the spool size was exceeded.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Creates a new spool file, deleted when it is closed.
+     */
+    SpoolFile create() throws IOException {
+        Path path = Files.createTempFile(resolveDirectory(), FILE_PREFIX, FILE_SUFFIX);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException ex) {
+            Files.deleteIfExists(path);
+            throw ex;
+        }
+        openFiles.incrementAndGet();
+        return new SpoolFile(channel);
+    }
+
+    private synchronized Path resolveDirectory() throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("soap-spool-");
+            directoryCreated = true;
+        }
+        return directory;
+    }
+
+    private void reserve(long bytes) {
+        for (;;) {
+            long current = spooled.get();
+            if (current + bytes > maxSpoolSize) {
+                rejected.increment();
+                throw new MemoryBudget.BudgetExceededException("Spool size of " + maxSpoolSize + " bytes exhausted",
+                        TransportFault.SERVICE_UNAVAILABLE);
+            }
+            if (spooled.compareAndSet(current, current + bytes)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The spooled body of a single request.
+     */
+    final class SpoolFile implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private boolean closed;
+
+        private SpoolFile(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Appends the readable bytes of the given buffer, without releasing it.
+         *
+         * @throws MemoryBudget.BudgetExceededException if the spool size would be exceeded
+         */
+        void write(DataBuffer dataBuffer) throws IOException {
+            int length = dataBuffer.readableByteCount();
+            reserve(length);
+            size += length;
+            ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        }
+
+        /**
+         * Returns a new stream over a read-only mapping of the spooled bytes.
+         */
+        InputStream getInputStream() throws IOException {
+            List<InputStream> inputStreams = new ArrayList<>();
+            // a single mapping is limited to 2 GB
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                long length = Math.min(Integer.MAX_VALUE, size - position);
+                inputStreams.add(DefaultDataBufferFactory.sharedInstance
+                        .wrap(channel.map(FileChannel.MapMode.READ_ONLY, position, length))
+                        .asInputStream());
+            }
+            return new SequenceInputStream(Collections.enumeration(inputStreams));
+        }
+
+        /**
+         * Closes and deletes the file, returning its bytes to the spool budget. The pages of mappings still reachable
+         * are unmapped once they are garbage collected.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            spooled.addAndGet(-size);
+            openFiles.decrementAndGet();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.warn("Could not close spool file", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 阻塞的 handleConnection 步骤的执行方式
+ *
+ * @author shanhy
+ * @date 2026-10-18 12:10
+ */
+public enum DispatchMode {
+
+    /**
+     * Runs the dispatch on the thread that completed the request body, usually a reactor-netty event loop.
+     */
+    EVENT_LOOP,
+
+    /**
+     * Offloads the dispatch to {@link Schedulers#boundedElastic()}.
+     */
+    BOUNDED_ELASTIC,
+
+    /**
+     * Offloads the dispatch to a new virtual thread per request. Requires JDK 21 or later at runtime; falls back to
+     * {@link #BOUNDED_ELASTIC} on older JDKs.
+     */
+    VIRTUAL_THREAD;
+
+    private static final Log logger = LogFactory.getLog(DispatchMode.class);
+
+    private static final Object virtualThreadSchedulerMonitor = new Object();
+
+    private static Scheduler virtualThreadScheduler;
+
+    /**
+     * Returns the scheduler for this mode, or {@code null} if the dispatch is not offloaded.
+     *
+     * <p>Like {@link Schedulers#boundedElastic()}, the virtual thread scheduler is shared: it is created on first use,
+     * and again only after it was disposed. Disposing it shuts its executor down.
+     */
+    public Scheduler createScheduler() {
+        switch (this) {
+            case BOUNDED_ELASTIC:
+                return Schedulers.boundedElastic();
+            case VIRTUAL_THREAD:
+                Scheduler scheduler = getVirtualThreadScheduler();
+                if (scheduler != null) {
+                    return scheduler;
+                }
+                logger.warn("Virtual threads are not available on this JVM, using boundedElastic instead");
+                return Schedulers.boundedElastic();
+            default:
+                return null;
+        }
+    }
+
+    private static Scheduler getVirtualThreadScheduler() {
+        synchronized (virtualThreadSchedulerMonitor) {
+            if (virtualThreadScheduler == null || virtualThreadScheduler.isDisposed()) {
+                ExecutorService executor = newVirtualThreadPerTaskExecutor();
+                if (executor == null) {
+                    return null;
+                }
+                virtualThreadScheduler = Schedulers.fromExecutorService(executor, "soap-virtual");
+            }
+            return virtualThreadScheduler;
+        }
+    }
+
+    /**
+     * Indicates whether virtual threads are available on the running JVM.
+     */
+    public static boolean isVirtualThreadAvailable() {
+        return findVirtualThreadFactoryMethod() != null;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factoryMethod = findVirtualThreadFactoryMethod();
+        if (factoryMethod == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) factoryMethod.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not create virtual thread executor", ex);
+            }
+            return null;
+        }
+    }
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.NonBlocking;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 事件循环阻塞诊断：记录非阻塞线程上正在执行的 SOAP、WSDL、XSD 处理段，后台线程定期检查，
+ * 超过阈值仍未结束的处理段连同其线程栈和操作名一起上报
+ *
+ * <p>The current operation is also exposed through {@link #currentOperation()}, so {@link SoapBlockHoundIntegration}
+ * can name it when BlockHound detects a blocking call.
+ *
+ * @author shanhy
+ * @date 2026-10-18 20:10
+ */
+public class EventLoopWatchdog implements DisposableBean {
+
+    private static final ThreadLocal<String> currentOperation = new ThreadLocal<>();
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Map<Thread, Section> activeSections = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final LongAdder stalls = new LongAdder();
+
+    private Duration stallThreshold = Duration.ofMillis(100);
+
+    private Duration checkInterval = Duration.ofMillis(20);
+
+    private Predicate<Thread> nonBlockingThread = nonBlockingThreads();
+
+    private Consumer<Stall> reporter = stall -> logger.warn(stall);
+
+    private volatile Thread watchdogThread;
+
+    /**
+     * Sets how long a section may run on a non-blocking thread before it is reported. Defaults to 100 milliseconds.
+     */
+    public void setStallThreshold(Duration stallThreshold) {
+        Assert.isTrue(!stallThreshold.isNegative() && !stallThreshold.isZero(), "'stallThreshold' must be positive");
+        this.stallThreshold = stallThreshold;
+    }
+
+    /**
+     * Sets how often running sections are checked. Defaults to 20 milliseconds.
+     */
+    public void setCheckInterval(Duration checkInterval) {
+        Assert.isTrue(!checkInterval.isNegative() && !checkInterval.isZero(), "'checkInterval' must be positive");
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Sets the predicate identifying non-blocking threads. Defaults to {@link #nonBlockingThreads()}.
+     */
+    public void setNonBlockingThread(Predicate<Thread> nonBlockingThread) {
+        Assert.notNull(nonBlockingThread, "'nonBlockingThread' must not be null");
+        this.nonBlockingThread = nonBlockingThread;
+    }
+
+    /**
+     * Sets the consumer of detected stalls. Defaults to logging them at warn level.
+     */
+    public void setReporter(Consumer<Stall> reporter) {
+        Assert.notNull(reporter, "'reporter' must not be null");
+        this.reporter = reporter;
+    }
+
+    /**
+     * Matches Reactor's {@link NonBlocking} threads and the reactor-netty event loops.
+     */
+    public static Predicate<Thread> nonBlockingThreads() {
+        return thread -> thread instanceof NonBlocking || thread.getName().startsWith("reactor-http-");
+    }
+
+    /**
+     * Returns the operation of the innermost section running on the current thread, or {@code null} if none.
+     */
+    public static String currentOperation() {
+        return currentOperation.get();
+    }
+
+    /**
+     * Starts a section of work on the current thread. It is watched only if the thread is non-blocking.
+     *
+     * @param operation names the work in reports
+     * @return the section, to be closed on the same thread when the work ends
+     */
+    public Section enter(String operation) {
+        Thread thread = Thread.currentThread();
+        Section section = new Section(thread, operation, nonBlockingThread.test(thread));
+        if (section.watched) {
+            startIfNecessary();
+            section.outer = activeSections.put(thread, section);
+        }
+        return section;
+    }
+
+    /**
+     * Watches the subscription to the given {@code Mono}, which runs deferred work, such as that of
+     * {@code Mono.defer} or {@code Mono.using}, on the subscribing thread. Work run on later signals is not covered.
+     *
+     * @param operation names the work in reports
+     * @param mono the work
+     * @return the watched work
+     */
+    public <T> Mono<T> watch(String operation, Mono<T> mono) {
+        Publisher<T> watched = subscriber -> {
+            try (Section section = enter(operation)) {
+                mono.subscribe(subscriber);
+            }
+        };
+        return Mono.fromDirect(watched);
+    }
+
+    /**
+     * Returns the number of stalls reported.
+     */
+    public long getStalls() {
+        return stalls.sum();
+    }
+
+    @Override
+    public void destroy() {
+        Thread thread = watchdogThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void startIfNecessary() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::watch, "soap-event-loop-watchdog");
+            thread.setDaemon(true);
+            watchdogThread = thread;
+            thread.start();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(checkInterval.toMillis());
+                check(System.nanoTime());
+            }
+        } catch (InterruptedException ex) {
+            // destroyed
+        }
+    }
+
+    private void check(long now) {
+        long thresholdNanos = stallThreshold.toNanos();
+        for (Section section : activeSections.values()) {
+            if (section.reported || now - section.startNanos < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stackTrace = section.thread.getStackTrace();
+            // the section may have ended while the stack was taken
+            if (activeSections.get(section.thread) != section) {
+                continue;
+            }
+            section.reported = true;
+            stalls.increment();
+            try {
+                reporter.accept(new Stall(section.thread.getName(), section.operation, now - section.startNanos,
+                        stackTrace));
+            } catch (RuntimeException ex) {
+                logger.warn("Stall reporter failed", ex);
+            }
+        }
+    }
+
+    /**
+     * A section of work on a single thread.
+     */
+    public final class Section implements AutoCloseable {
+
+        private final Thread thread;
+
+        private final String operation;
+
+        private final boolean watched;
+
+        private final String outerOperation;
+
+        private final long startNanos = System.nanoTime();
+
+        private Section outer;
+
+        private volatile boolean reported;
+
+        private Section(Thread thread, String operation, boolean watched) {
+            this.thread = thread;
+            this.operation = operation;
+            this.watched = watched;
+            this.outerOperation = currentOperation.get();
+            currentOperation.set(operation);
+        }
+
+        /**
+         * Ends the section, resuming the one it was nested in, if any.
+         */
+        @Override
+        public void close() {
+            if (outerOperation != null) {
+                currentOperation.set(outerOperation);
+            } else {
+                currentOperation.remove();
+            }
+            if (watched) {
+                if (outer != null) {
+                    activeSections.put(thread, outer);
+                } else {
+                    activeSections.remove(thread, this);
+                }
+            }
+        }
+    }
+
+    /**
+     * A section that ran longer than the stall threshold on a non-blocking thread.
+     */
+    public static final class Stall {
+
+        private final String threadName;
+
+        private final String operation;
+
+        private final long durationNanos;
+
+        private final StackTraceElement[] stackTrace;
+
+        Stall(String threadName, String operation, long durationNanos, StackTraceElement[] stackTrace) {
+            this.threadName = threadName;
+            this.operation = operation;
+            this.durationNanos = durationNanos;
+            this.stackTrace = stackTrace;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Returns how long the section had been running when it was detected.
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Returns the stack of the thread when the stall was detected.
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Operation [").append(operation).append("] has been running for ")
+                    .append(durationNanos / 1_000_000L).append(" ms on non-blocking thread [").append(threadName)
+                    .append(']');
+            for (StackTraceElement element : stackTrace) {
+                builder.append("\n\tat ").append(element);
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.shanhy.spring.ws.reactor;
+
+import com.sun.xml.fastinfoset.sax.SAXDocumentParser;
+import com.sun.xml.fastinfoset.sax.SAXDocumentSerializer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.ReflectionUtils;
+import org.xml.sax.InputSource;
+
+import javax.xml.soap.SOAPMessage;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fast Infoset 二进制 XML 编解码：SAAJ 参考实现直接读写 FI，其余消息工厂由流式的恒等转换在文本 XML 与 FI 之间转码
+ *
+ * <p>The SAAJ reference implementation parses a Fast Infoset envelope itself when the content type says so, and
+ * serializes its envelope straight to Fast Infoset once {@link #useFastInfoset(SOAPMessage) asked to}. The transcoding
+ * methods are the fallback for other message factories and SAAJ implementations. They require
+ * {@code com.sun.xml.fastinfoset:FastInfoset} on the classpath, and load it only when first called.
+ *
+ * @author shanhy
+ * @date 2026-10-18 19:10
+ */
+final class FastInfosetCodec {
+
+    /**
+     * Fast Infoset encoded SOAP 1.1.
+     */
+    static final MediaType APPLICATION_FASTINFOSET = MediaType.valueOf("application/fastinfoset");
+
+    /**
+     * Fast Infoset encoded SOAP 1.2.
+     */
+    static final MediaType APPLICATION_SOAP_FASTINFOSET = MediaType.valueOf("application/soap+fastinfoset");
+
+    private static final MediaType TEXT_XML = MediaType.valueOf("text/xml;charset=utf-8");
+
+    private static final MediaType APPLICATION_SOAP_XML = MediaType.valueOf("application/soap+xml;charset=utf-8");
+
+    /**
+     * The {@code setIsFastInfoset(boolean)} method of SAAJ reference implementation messages, per message class.
+     */
+    private static final Map<Class<?>, Optional<Method>> setIsFastInfosetMethods = new ConcurrentHashMap<>();
+
+    private FastInfosetCodec() {
+    }
+
+    /**
+     * Indicates whether the given content type is a Fast Infoset one.
+     */
+    static boolean isFastInfoset(MediaType contentType) {
+        return contentType != null && (APPLICATION_FASTINFOSET.equalsTypeAndSubtype(contentType) ||
+                APPLICATION_SOAP_FASTINFOSET.equalsTypeAndSubtype(contentType));
+    }
+
+    /**
+     * Indicates whether the {@code Accept} header of the given request headers allows a Fast Infoset response.
+     */
+    static boolean isAccepted(HttpHeaders requestHeaders) {
+        List<MediaType> accept;
+        try {
+            accept = requestHeaders.getAccept();
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+        for (MediaType mediaType : accept) {
+            if (isFastInfoset(mediaType) && mediaType.getQualityValue() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the textual content type for the given Fast Infoset one, keeping its parameters such as {@code action}.
+     */
+    static MediaType toXmlContentType(MediaType fastInfosetContentType) {
+        MediaType xml = APPLICATION_SOAP_FASTINFOSET.equalsTypeAndSubtype(fastInfosetContentType) ?
+                APPLICATION_SOAP_XML : TEXT_XML;
+        return withParameters(xml, fastInfosetContentType);
+    }
+
+    /**
+     * Returns the Fast Infoset content type for the given textual one, keeping its parameters except the charset.
+     */
+    static MediaType toFastInfosetContentType(MediaType xmlContentType) {
+        if (isFastInfoset(xmlContentType)) {
+            return xmlContentType;
+        }
+        boolean soap12 = xmlContentType != null && "soap+xml".equals(xmlContentType.getSubtype());
+        MediaType fastInfoset = soap12 ? APPLICATION_SOAP_FASTINFOSET : APPLICATION_FASTINFOSET;
+        return xmlContentType != null ? withParameters(fastInfoset, xmlContentType) : fastInfoset;
+    }
+
+    private static MediaType withParameters(MediaType type, MediaType parameterSource) {
+        Map<String, String> parameters = new LinkedHashMap<>(type.getParameters());
+        parameterSource.getParameters().forEach((name, value) -> {
+            if (!"charset".equalsIgnoreCase(name)) {
+                parameters.put(name, value);
+            }
+        });
+        return new MediaType(type, parameters);
+    }
+
+    /**
+     * Indicates whether the given buffer starts with the binary Fast Infoset document header.
+     */
+    static boolean isFastInfosetDocument(DataBuffer dataBuffer) {
+        int position = dataBuffer.readPosition();
+        return dataBuffer.readableByteCount() >= 4 && (dataBuffer.getByte(position) & 0xFF) == 0xE0 &&
+                dataBuffer.getByte(position + 1) == 0 && dataBuffer.getByte(position + 2) == 0;
+    }
+
+    /**
+     * Asks the given SAAJ message to serialize its envelope to Fast Infoset when it is written.
+     *
+     * @param message the message about to be written
+     * @return whether the SAAJ implementation supports it
+     */
+    static boolean useFastInfoset(SOAPMessage message) {
+        Optional<Method> method = setIsFastInfosetMethods.computeIfAbsent(message.getClass(),
+                messageClass -> Optional.ofNullable(
+                        ReflectionUtils.findMethod(messageClass, "setIsFastInfoset", boolean.class)));
+        if (!method.isPresent()) {
+            return false;
+        }
+        try {
+            ReflectionUtils.invokeMethod(method.get(), message, true);
+            return true;
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Decodes a Fast Infoset document to textual XML.
+     *
+     * @param fastInfoset the encoded document
+     * @param xml receives the UTF-8 encoded XML
+     * @param transformer an identity transformer
+     */
+    static void decode(InputStream fastInfoset, OutputStream xml, Transformer transformer)
+            throws TransformerException {
+        Transcoder.decode(fastInfoset, xml, transformer);
+    }
+
+    /**
+     * Encodes a textual XML document to Fast Infoset.
+     *
+     * @param xml the XML document
+     * @param fastInfoset receives the encoded document
+     * @param transformer an identity transformer
+     */
+    static void encode(InputStream xml, OutputStream fastInfoset, Transformer transformer)
+            throws TransformerException {
+        Transcoder.encode(xml, fastInfoset, transformer);
+    }
+
+    /**
+     * Holds the FastInfoset library references, so that they are resolved only when transcoding.
+     */
+    private static final class Transcoder {
+
+        private static void decode(InputStream fastInfoset, OutputStream xml, Transformer transformer)
+                throws TransformerException {
+            transformer.transform(new SAXSource(new SAXDocumentParser(), new InputSource(fastInfoset)),
+                    new StreamResult(xml));
+        }
+
+        private static void encode(InputStream xml, OutputStream fastInfoset, Transformer transformer)
+                throws TransformerException {
+            SAXDocumentSerializer serializer = new SAXDocumentSerializer();
+            serializer.setOutputStream(fastInfoset);
+            SAXResult result = new SAXResult(serializer);
+            result.setLexicalHandler(serializer);
+            transformer.transform(new StreamSource(xml), result);
+        }
+    }
+}
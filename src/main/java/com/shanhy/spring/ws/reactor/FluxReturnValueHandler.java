@@ -0,0 +1,123 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.util.Assert;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.adapter.method.MethodReturnValueHandler;
+import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.xml.transform.TransformerFactoryUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import reactor.core.publisher.Flux;
+
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import java.util.UUID;
+
+/**
+ * 支持端点方法返回 {@code Flux<T>}：响应信封只写出包装元素，元素在写出响应时由
+ * {@link ReactorWebServiceMessageReceiverHandlerAdapter} 逐个序列化
+ *
+ * <p>Register it with {@code DefaultMethodEndpointAdapter#setCustomMethodReturnValueHandlers}. Items are marshalled
+ * with the given {@link Jaxb2Marshaller}, so each must be an {@code @XmlRootElement} or a {@code JAXBElement}. The
+ * response has no {@code Content-Length}, and an error raised by the {@link Flux} after the envelope head was written
+ * aborts the connection.
+ *
+ * @author shanhy
+ * @date 2026-10-18 19:30
+ */
+public class FluxReturnValueHandler implements MethodReturnValueHandler {
+
+    private static final String RESPONSE_SUFFIX = "Response";
+
+    private final Jaxb2Marshaller marshaller;
+
+    private final TransformerFactory transformerFactory = TransformerFactoryUtils.newInstance();
+
+    private XmlParserFactories xmlParserFactories = XmlParserFactories.getShared();
+
+    /**
+     * Creates a new handler.
+     *
+     * @param marshaller marshals the items
+     */
+    public FluxReturnValueHandler(Jaxb2Marshaller marshaller) {
+        Assert.notNull(marshaller, "'marshaller' must not be null");
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} from which document builders and transformers are leased. Defaults to the
+     * shared registry.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return Flux.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(MessageContext messageContext, MethodParameter returnType, Object returnValue)
+            throws Exception {
+        if (returnValue == null) {
+            return;
+        }
+        TransportContext transportContext = TransportContextHolder.getTransportContext();
+        if (transportContext == null || !(transportContext.getConnection() instanceof ServerHttpConnection)) {
+            throw new IllegalStateException(
+                    "Flux return values require the ReactorWebServiceMessageReceiverHandlerAdapter");
+        }
+        String marker = "stream-" + UUID.randomUUID();
+        writeWrapper(messageContext.getResponse(), getWrapperName(messageContext, returnType), marker);
+
+        Marshaller itemMarshaller = marshaller.createMarshaller();
+        itemMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        ((ServerHttpConnection) transportContext.getConnection()).setStreamingResponse(
+                new StreamingResponse((Flux<?>) returnValue, marker, itemMarshaller));
+    }
+
+    /**
+     * Returns the name of the element wrapping the streamed items.
+     *
+     * <p>Default implementation appends {@code Response} to the request payload root, in the same namespace.
+     *
+     * @param messageContext the current message context
+     * @param returnType the return type of the endpoint method
+     * @return the wrapper element name
+     * @throws Exception in case of errors
+     */
+    protected QName getWrapperName(MessageContext messageContext, MethodParameter returnType) throws Exception {
+        QName requestRoot = PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(),
+                transformerFactory);
+        Assert.state(requestRoot != null, "Request has no payload to derive the response wrapper from");
+        return new QName(requestRoot.getNamespaceURI(), requestRoot.getLocalPart() + RESPONSE_SUFFIX,
+                requestRoot.getPrefix());
+    }
+
+    private void writeWrapper(WebServiceMessage response, QName wrapperName, String marker) throws Exception {
+        Element wrapper;
+        try (BoundedObjectPool.Lease<DocumentBuilder> documentBuilderLease =
+                     xmlParserFactories.leaseDocumentBuilder()) {
+            Document document = documentBuilderLease.get().newDocument();
+            String prefix = wrapperName.getPrefix();
+            wrapper = document.createElementNS(wrapperName.getNamespaceURI(), prefix.isEmpty() ?
+                    wrapperName.getLocalPart() : prefix + ':' + wrapperName.getLocalPart());
+            wrapper.setTextContent(marker);
+            document.appendChild(wrapper);
+        }
+        try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+            transformerLease.get().transform(new DOMSource(wrapper), response.getPayloadResult());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 幂等存储：按 WS-Addressing MessageID 等键保存已完成的响应字节，重复请求直接返回保存的响应，处理中的重复请求等待首个请求完成
+ *
+ * <p>Each key is claimed with a fingerprint of the request, such as a digest of its body; a request reusing a key with
+ * a different fingerprint is refused with a {@link FingerprintMismatchException} rather than answered.
+ *
+ * <p>Entries are split across segments in claim order, each bounded to its share of the
+ * {@linkplain #setMaxEntries maximum}, so a claim never scans more than its own segment. Expired entries are swept at
+ * a fixed interval.
+ *
+ * @author shanhy
+ * @date 2026-10-18 16:05
+ */
+public class IdempotencyStore {
+
+    /**
+     * Default maximum number of stored responses.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Default time a completed response is kept.
+     */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private static final int SEGMENTS = 16;
+
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final AtomicLong nextSweep = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder replays = new LongAdder();
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private volatile long timeToLiveMillis = DEFAULT_TIME_TO_LIVE.toMillis();
+
+    public IdempotencyStore() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Sets the maximum number of entries, including requests in progress, split evenly across segments. When a segment
+     * is full, its oldest completed entry is evicted; if all of them are in progress, the oldest is released as if its
+     * owner had given up, so that its waiting requests claim the key again. Defaults to {@link #DEFAULT_MAX_ENTRIES}.
+     */
+    public void setMaxEntries(int maxEntries) {
+        Assert.isTrue(maxEntries > 0, "'maxEntries' must be positive");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Sets how long a completed response is kept. Defaults to {@link #DEFAULT_TIME_TO_LIVE}.
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLiveMillis = timeToLive.toMillis();
+    }
+
+    /**
+     * Claims the given key. If the key is new, the caller becomes its owner and must call {@link #complete} or
+     * {@link #release}; {@code null} is returned. Otherwise the returned {@code Mono} emits the response of the owner,
+     * once it has completed, completes empty if the owner released the key without a response, or fails with a
+     * {@link FingerprintMismatchException} if the key was claimed with a different fingerprint.
+     *
+     * @param key the idempotency key
+     * @param fingerprint identifies the request, a replay is only served to a request with the same fingerprint
+     * @return {@code null} if the caller owns the key, or the stored response
+     */
+    public Mono<StoredResponse> claim(String key, String fingerprint) {
+        Assert.notNull(fingerprint, "'fingerprint' must not be null");
+        long now = System.currentTimeMillis();
+        long sweep = nextSweep.get();
+        if (now - sweep >= 0 &&
+                nextSweep.compareAndSet(sweep, now + Math.max(timeToLiveMillis, MIN_SWEEP_INTERVAL_MILLIS))) {
+            evictExpired(now);
+        }
+        Entry evicted = null;
+        Entry entry;
+        Segment segment = getSegment(key);
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry == null || entry.isExpired(now)) {
+                evicted = segment.add(key, new Entry(fingerprint), Math.max(1, maxEntries / SEGMENTS));
+                entry = null;
+            }
+        }
+        if (evicted != null) {
+            evicted.sink.tryEmitEmpty();
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return Mono.error(new FingerprintMismatchException(key));
+        }
+        replays.increment();
+        return entry.sink.asMono();
+    }
+
+    /**
+     * Stores the response of an owned key, and hands it to all requests waiting for it.
+     *
+     * @param key the idempotency key
+     * @param response the response to store
+     */
+    public void complete(String key, StoredResponse response) {
+        Entry entry;
+        Segment segment = getSegment(key);
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry == null || entry.expiresAt != Long.MAX_VALUE) {
+                return;
+            }
+            entry.expiresAt = System.currentTimeMillis() + timeToLiveMillis;
+        }
+        entry.sink.tryEmitValue(response);
+    }
+
+    /**
+     * Releases an owned key. If no response was stored, the key is removed and waiting requests complete empty, so
+     * that they can claim it again.
+     *
+     * @param key the idempotency key
+     */
+    public void release(String key) {
+        Entry entry;
+        Segment segment = getSegment(key);
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry == null || entry.expiresAt != Long.MAX_VALUE) {
+                return;
+            }
+            segment.entries.remove(key);
+        }
+        entry.sink.tryEmitEmpty();
+    }
+
+    /**
+     * Returns the number of requests answered with, or waiting for, a stored response.
+     */
+    public long getReplays() {
+        return replays.sum();
+    }
+
+    /**
+     * Returns the number of entries, including requests in progress.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment getSegment(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private void evictExpired(long now) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.values().removeIf(entry -> entry.isExpired(now));
+            }
+        }
+    }
+
+    /**
+     * A bounded share of the entries, oldest claim first. Guarded by its own monitor.
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        /**
+         * Adds a claimed entry, making room first if the segment is full.
+         *
+         * @return the in-progress entry evicted to make room, whose waiters must be released, or {@code null}
+         */
+        private Entry add(String key, Entry entry, int capacity) {
+            // a reclaimed expired key moves to the end
+            entries.remove(key);
+            Entry evicted = null;
+            if (entries.size() >= capacity) {
+                Iterator<Entry> iterator = entries.values().iterator();
+                Entry eldest = iterator.next();
+                // entries are completed roughly in claim order, so the oldest completed one is usually near the head
+                while (eldest.expiresAt == Long.MAX_VALUE && iterator.hasNext()) {
+                    eldest = iterator.next();
+                }
+                if (eldest.expiresAt == Long.MAX_VALUE) {
+                    // all in progress
+                    iterator = entries.values().iterator();
+                    evicted = iterator.next();
+                }
+                iterator.remove();
+            }
+            entries.put(key, entry);
+            return evicted;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Sinks.One<StoredResponse> sink = Sinks.one();
+
+        private final String fingerprint;
+
+        /**
+         * {@code Long.MAX_VALUE} while the owning request is in progress.
+         */
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt < now;
+        }
+    }
+
+    /**
+     * Thrown when a key is reused by a request with a different fingerprint.
+     */
+    public static class FingerprintMismatchException extends RuntimeException {
+
+        public FingerprintMismatchException(String key) {
+            super("Idempotency key [" + key + "] was used by a different request");
+        }
+    }
+
+    /**
+     * A completed response.
+     */
+    public static final class StoredResponse {
+
+        private final int status;
+
+        private final HttpHeaders headers;
+
+        private final byte[] body;
+
+        /**
+         * @param status the HTTP status code
+         * @param headers the response headers, copied
+         * @param body the response body
+         */
+        public StoredResponse(int status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(headers);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+            this.body = body;
+        }
+
+        /**
+         * Writes this response to the given one.
+         *
+         * @param response current HTTP response
+         * @return completion of the write
+         */
+        public Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setRawStatusCode(status);
+            response.getHeaders().putAll(headers);
+            response.getHeaders().setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+}
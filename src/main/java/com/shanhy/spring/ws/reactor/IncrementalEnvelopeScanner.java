@@ -0,0 +1,127 @@
+package com.shanhy.spring.ws.reactor;
+
+import com.fasterxml.aalto.AsyncByteBufferFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.ws.InvalidXmlException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * 基于 Aalto 异步解析器的增量信封扫描：请求体的每个 DataBuffer 到达时即送入解析器，边接收边检查 XML 是否格式正确，
+ * 并提取与 {@link SoapEnvelopeSniffer} 相同的信息，无需在收齐后再次解析
+ *
+ * <p>The buffers are fed by reference, so they must stay valid until the scanner has been {@linkplain #finish()
+ * finished}. Requires {@code com.fasterxml:aalto-xml} on the classpath.
+ *
+ * @author shanhy
+ * @date 2026-10-18 17:50
+ */
+final class IncrementalEnvelopeScanner {
+
+    private static final AsyncXMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final AsyncXMLStreamReader<AsyncByteBufferFeeder> reader = INPUT_FACTORY.createAsyncForByteBuffer();
+
+    private final SoapEnvelopeSniffer.Result result = new SoapEnvelopeSniffer.Result();
+
+    private int depth;
+
+    private String section;
+
+    /**
+     * Text of the {@code MessageID} header while it is being read, {@code null} otherwise.
+     */
+    private StringBuilder messageId;
+
+    private boolean done;
+
+    /**
+     * Feeds the next buffer of the request body and tokenizes as far as it goes.
+     *
+     * @param dataBuffer the buffer, which must not be released before the scanner is finished
+     * @throws InvalidXmlException if the body is not well-formed so far
+     */
+    void feed(DataBuffer dataBuffer) {
+        if (done) {
+            return;
+        }
+        try {
+            reader.getInputFeeder().feedInput(dataBuffer.asByteBuffer());
+            scan();
+        } catch (XMLStreamException ex) {
+            throw new InvalidXmlException("Could not parse XML", ex);
+        }
+    }
+
+    /**
+     * Signals the end of the request body.
+     *
+     * @return the values found in the envelope
+     * @throws InvalidXmlException if the body is not a complete, well-formed document
+     */
+    SoapEnvelopeSniffer.Result finish() {
+        try {
+            if (!done) {
+                reader.getInputFeeder().endOfInput();
+                scan();
+            }
+            reader.close();
+        } catch (XMLStreamException ex) {
+            throw new InvalidXmlException("Could not parse XML", ex);
+        }
+        return result;
+    }
+
+    private void scan() throws XMLStreamException {
+        while (!done) {
+            int event = reader.next();
+            switch (event) {
+                case AsyncXMLStreamReader.EVENT_INCOMPLETE:
+                    return;
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    if (depth == 2) {
+                        section = reader.getLocalName();
+                    } else if (depth == 3 && result.payloadRoot == null &&
+                            SoapEnvelopeSniffer.BODY_ELEMENT.equals(section)) {
+                        result.payloadRoot = reader.getName();
+                    } else if (depth == 3 && SoapEnvelopeSniffer.HEADER_ELEMENT.equals(section) &&
+                            SoapEnvelopeSniffer.MESSAGE_ID_ELEMENT.equals(reader.getLocalName()) &&
+                            SoapEnvelopeSniffer.isAddressingNamespace(reader.getNamespaceURI())) {
+                        messageId = new StringBuilder();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (messageId != null) {
+                        messageId.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (messageId != null) {
+                        result.messageId = messageId.toString().trim();
+                        messageId = null;
+                    }
+                    depth--;
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    done = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static AsyncXMLInputFactory createInputFactory() {
+        AsyncXMLInputFactory inputFactory = new InputFactoryImpl();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return inputFactory;
+    }
+}
@@ -1,5 +1,6 @@
 package com.shanhy.spring.ws.reactor;
 
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.xml.transform.TraxUtils;
 import org.w3c.dom.Document;
@@ -28,28 +29,49 @@ public class LastModifiedHelper {
      * @return the last modified date, as a long
      */
     public static long getLastModified(Source source) {
+        File documentFile = getFile(source);
+        if (documentFile != null && documentFile.exists()) {
+            return documentFile.lastModified();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the file the given {@link Source} was read from, or {@code null} if it is not file-based.
+     *
+     * @param source the source
+     * @return the file, which may not exist
+     */
+    public static File getFile(Source source) {
         if (source instanceof DOMSource) {
             Document document = TraxUtils.getDocument((DOMSource) source);
-            return document != null ? getLastModified(document.getDocumentURI()) : -1;
+            return document != null ? getFile(document.getDocumentURI()) : null;
         } else {
-            return getLastModified(source.getSystemId());
+            return getFile(source.getSystemId());
         }
     }
 
-    private static long getLastModified(String systemId) {
+    /**
+     * Returns a strong entity tag for the given content, a hash of its bytes.
+     *
+     * @param content the rendered content
+     * @return the quoted entity tag
+     */
+    public static String createETag(byte[] content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    private static File getFile(String systemId) {
         if (StringUtils.hasText(systemId)) {
             try {
                 URI systemIdUri = new URI(systemId);
                 if ("file".equals(systemIdUri.getScheme())) {
-                    File documentFile = new File(systemIdUri);
-                    if (documentFile.exists()) {
-                        return documentFile.lastModified();
-                    }
+                    return new File(systemIdUri);
                 }
-            } catch (URISyntaxException e) {
+            } catch (URISyntaxException | IllegalArgumentException e) {
                 // ignore
             }
         }
-        return -1;
+        return null;
     }
 }
@@ -0,0 +1,297 @@
+package com.shanhy.spring.ws.reactor;
+
+import com.shanhy.spring.ws.reactor.SoapFaultCatalog.TransportFault;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 全局在途内存预算：请求体的每个缓冲区到达时从预算中预留字节，请求结束时归还；预算耗尽时暂停读取（背压）直到有内存释放，
+ * 或直接拒绝
+ *
+ * @author shanhy
+ * @date 2026-10-18 18:50
+ */
+public class MemoryBudget {
+
+    private final long capacity;
+
+    private final AtomicLong reserved = new AtomicLong();
+
+    private final AtomicLong peak = new AtomicLong();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private long maxRequestSize = Long.MAX_VALUE;
+
+    private Duration maxWait = Duration.ZERO;
+
+    /**
+     * Creates a new budget.
+     *
+     * @param capacity the number of bytes all requests may hold at once
+     */
+    public MemoryBudget(long capacity) {
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the number of bytes a single request may hold; larger requests are rejected with 413: Payload Too Large.
+     * Unlimited by default.
+     */
+    public void setMaxRequestSize(long maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Sets how long reading a body may be suspended while the budget is exhausted, before the request is rejected with
+     * 503: Service Unavailable. Defaults to zero, rejecting at once.
+     */
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Indicates whether the given declared content length exceeds the maximum request size.
+     */
+    public boolean exceedsMaxRequestSize(long contentLength) {
+        return contentLength > maxRequestSize;
+    }
+
+    /**
+     * Starts accounting for a new request.
+     */
+    public Reservation newReservation() {
+        return new Reservation();
+    }
+
+    /**
+     * Returns the total budget in bytes.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bytes currently reserved.
+     */
+    public long getReserved() {
+        return reserved.get();
+    }
+
+    /**
+     * Returns the highest number of bytes reserved at once.
+     */
+    public long getPeak() {
+        return peak.get();
+    }
+
+    /**
+     * Returns the number of buffers waiting for the budget.
+     */
+    public int getWaiting() {
+        return waiters.size();
+    }
+
+    /**
+     * Returns the number of requests rejected because the budget or the maximum request size was exceeded.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private boolean tryReserve(long bytes) {
+        for (;;) {
+            long current = reserved.get();
+            if (current + bytes > capacity) {
+                return false;
+            }
+            if (reserved.compareAndSet(current, current + bytes)) {
+                peak.accumulateAndGet(current + bytes, Math::max);
+                return true;
+            }
+        }
+    }
+
+    private void release(long bytes) {
+        reserved.addAndGet(-bytes);
+        drainWaiters();
+    }
+
+    private synchronized void drainWaiters() {
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null) {
+            if (waiter.done.get()) {
+                waiters.poll();
+            } else if (tryReserve(waiter.bytes)) {
+                waiters.poll();
+                if (!waiter.grant()) {
+                    // cancelled in the meantime
+                    reserved.addAndGet(-waiter.bytes);
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Thrown when a request cannot be admitted within the budget.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+
+        private final TransportFault fault;
+
+        BudgetExceededException(String message, TransportFault fault) {
+            super(message);
+            this.fault = fault;
+        }
+
+        /**
+         * Returns the transport fault to respond with.
+         */
+        public TransportFault getFault() {
+            return fault;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long bytes;
+
+        private final Reservation reservation;
+
+        private final MonoSink<Void> sink;
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Waiter(long bytes, Reservation reservation, MonoSink<Void> sink) {
+            this.bytes = bytes;
+            this.reservation = reservation;
+            this.sink = sink;
+        }
+
+        private boolean grant() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            reservation.addGranted(bytes);
+            sink.success();
+            return true;
+        }
+    }
+
+    /**
+     * The bytes reserved by a single request.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final AtomicLong granted = new AtomicLong();
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final AtomicBoolean spooled = new AtomicBoolean();
+
+        private Reservation() {
+        }
+
+        /**
+         * Reserves the size of the given buffer, waiting for the budget if needed. The buffer is released if the
+         * reservation fails or is cancelled.
+         *
+         * @param dataBuffer a buffer of the request body
+         * @return the buffer, once it is accounted for
+         */
+        public Mono<DataBuffer> reserve(DataBuffer dataBuffer) {
+            long bytes = dataBuffer.readableByteCount();
+            return acquire(bytes)
+                    .thenReturn(dataBuffer)
+                    .doOnError(ex -> DataBufferUtils.release(dataBuffer))
+                    .doOnCancel(() -> DataBufferUtils.release(dataBuffer));
+        }
+
+        private Mono<Void> acquire(long bytes) {
+            if (requested.addAndGet(bytes) > maxRequestSize) {
+                rejected.increment();
+                return Mono.error(new BudgetExceededException("Request exceeds " + maxRequestSize + " bytes",
+                        TransportFault.PAYLOAD_TOO_LARGE));
+            }
+            if (spooled.get()) {
+                // goes straight to disk
+                return Mono.empty();
+            }
+            if (waiters.isEmpty() && tryReserve(bytes)) {
+                addGranted(bytes);
+                return Mono.empty();
+            }
+            if (maxWait.isZero() || maxWait.isNegative()) {
+                rejected.increment();
+                return Mono.error(exhausted());
+            }
+            Mono<Void> wait = Mono.create(sink -> {
+                Waiter waiter = new Waiter(bytes, this, sink);
+                sink.onDispose(() -> waiter.done.set(true));
+                waiters.offer(waiter);
+                drainWaiters();
+            });
+            return wait.timeout(maxWait, Mono.defer(() -> {
+                rejected.increment();
+                return Mono.error(exhausted());
+            }));
+        }
+
+        private BudgetExceededException exhausted() {
+            return new BudgetExceededException("Memory budget of " + capacity + " bytes exhausted",
+                    TransportFault.SERVICE_UNAVAILABLE);
+        }
+
+        private void addGranted(long bytes) {
+            granted.addAndGet(bytes);
+            if (closed.get() || spooled.get()) {
+                // granted while the request completed, or its body moved to disk
+                returnGranted();
+            }
+        }
+
+        private void returnGranted() {
+            long bytes = granted.getAndSet(0);
+            if (bytes > 0) {
+                release(bytes);
+            }
+        }
+
+        /**
+         * Returns the bytes reserved so far to the budget, as the body they hold has moved to disk, and stops reserving
+         * the buffers that follow, since they are written to disk as well. The maximum request size still applies.
+         */
+        public void spooled() {
+            if (spooled.compareAndSet(false, true)) {
+                returnGranted();
+            }
+        }
+
+        /**
+         * Returns all bytes reserved by this request to the budget. Calling it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                returnGranted();
+            }
+        }
+    }
+}
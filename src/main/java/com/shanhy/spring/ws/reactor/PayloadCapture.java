@@ -0,0 +1,103 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次捕获的请求/响应报文，持有报文前缀的副本缓冲区，使用完毕后须调用 {@link #close()} 释放
+ *
+ * @author shanhy
+ * @date 2026-10-18 17:10
+ */
+public final class PayloadCapture implements AutoCloseable {
+
+    private final long timestamp;
+
+    private final String operation;
+
+    private final int status;
+
+    private final DataBuffer request;
+
+    private final long requestSize;
+
+    private final DataBuffer response;
+
+    private final long responseSize;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PayloadCapture(String operation, int status, DataBuffer request, long requestSize, DataBuffer response,
+                   long responseSize) {
+        this.timestamp = System.currentTimeMillis();
+        this.operation = operation;
+        this.status = status;
+        this.request = request;
+        this.requestSize = requestSize;
+        this.response = response;
+        this.responseSize = responseSize;
+    }
+
+    /**
+     * Returns the time the capture was taken, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the operation key, the {@code SOAPAction} or the request path.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the size of the complete request body; larger than the captured part if it was truncated.
+     */
+    public long getRequestSize() {
+        return requestSize;
+    }
+
+    /**
+     * Returns the size of the complete response body; larger than the captured part if it was truncated.
+     */
+    public long getResponseSize() {
+        return responseSize;
+    }
+
+    /**
+     * Decodes the captured part of the request body.
+     */
+    public String getRequest(Charset charset) {
+        return request.toString(request.readPosition(), request.readableByteCount(), charset);
+    }
+
+    /**
+     * Decodes the captured part of the response body.
+     */
+    public String getResponse(Charset charset) {
+        return response.toString(response.readPosition(), response.readableByteCount(), charset);
+    }
+
+    /**
+     * Releases the captured buffers. Calling it more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            DataBufferUtils.release(request);
+            DataBufferUtils.release(response);
+        }
+    }
+}
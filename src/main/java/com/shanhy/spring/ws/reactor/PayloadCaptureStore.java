@@ -0,0 +1,149 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 报文捕获存储：按采样率或条件选择请求，将请求/响应报文不超过上限的前缀复制到小缓冲区保存，存满时丢弃最旧的捕获
+ *
+ * <p>The captures hold at most {@code capacity * 2 * maxBodySize} bytes, outside of the {@link MemoryBudget}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 17:15
+ */
+public class PayloadCaptureStore implements DisposableBean {
+
+    /**
+     * Default maximum number of captures kept.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * Default maximum number of bytes captured per body.
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024;
+
+    private final Deque<PayloadCapture> captures = new ArrayDeque<>();
+
+    private final LongAdder evicted = new LongAdder();
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+    private double sampleRate;
+
+    private Predicate<ServerHttpRequest> predicate;
+
+    /**
+     * Sets the maximum number of captures kept; the oldest is released when it is exceeded. Defaults to
+     * {@link #DEFAULT_CAPACITY}.
+     */
+    public void setCapacity(int capacity) {
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the maximum number of bytes captured per body. Defaults to {@link #DEFAULT_MAX_BODY_SIZE}.
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Sets the fraction of requests captured, between {@code 0} (the default) and {@code 1}.
+     */
+    public void setSampleRate(double sampleRate) {
+        Assert.isTrue(sampleRate >= 0.0d && sampleRate <= 1.0d, "'sampleRate' must be between 0 and 1");
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets a predicate selecting requests that are always captured.
+     */
+    public void setPredicate(Predicate<ServerHttpRequest> predicate) {
+        this.predicate = predicate;
+    }
+
+    /**
+     * Indicates whether the given request is to be captured.
+     *
+     * @param request current HTTP request
+     */
+    public boolean shouldCapture(ServerHttpRequest request) {
+        if (predicate != null && predicate.test(request)) {
+            return true;
+        }
+        return sampleRate > 0.0d && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Returns the maximum number of bytes captured per body.
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Stores a capture. The buffers are owned by the store from now on.
+     *
+     * @param operation the operation key
+     * @param status the HTTP status code
+     * @param request a copy of at most {@link #getMaxBodySize()} leading bytes of the request body
+     * @param requestSize the size of the complete request body
+     * @param response a copy of at most {@link #getMaxBodySize()} leading bytes of the response body
+     * @param responseSize the size of the complete response body
+     */
+    public void capture(String operation, int status, DataBuffer request, long requestSize, DataBuffer response,
+                        long responseSize) {
+        PayloadCapture capture = new PayloadCapture(operation, status, request, requestSize, response, responseSize);
+        PayloadCapture eldest = null;
+        synchronized (captures) {
+            captures.addLast(capture);
+            if (captures.size() > capacity) {
+                eldest = captures.removeFirst();
+            }
+        }
+        if (eldest != null) {
+            evicted.increment();
+            eldest.close();
+        }
+    }
+
+    /**
+     * Removes and returns all captures, oldest first. The caller must {@linkplain PayloadCapture#close() close} them.
+     */
+    public List<PayloadCapture> drain() {
+        synchronized (captures) {
+            List<PayloadCapture> drained = new ArrayList<>(captures);
+            captures.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Returns the number of captures released without having been drained.
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * Releases all captures.
+     */
+    @Override
+    public void destroy() {
+        drain().forEach(PayloadCapture::close);
+    }
+}
@@ -0,0 +1,132 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.lang.Nullable;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.oxm.mime.MimeContainer;
+
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+
+/**
+ * 池化的 Jaxb2Marshaller，复用 JAXB Marshaller/Unmarshaller 实例，避免每次调用都重新创建
+ *
+ * <p>Every {@link #marshal} and {@link #unmarshal} call leases an instance from a {@link BoundedObjectPool} and
+ * returns it before the call completes. An instance is therefore never shared between concurrent calls, whichever
+ * scheduler thread runs the dispatch stage.
+ *
+ * <p>The dispatcher does not marshal payloads itself; the pool takes effect wherever this marshaller is registered in
+ * place of a plain {@link Jaxb2Marshaller}: as the marshaller and unmarshaller of the
+ * {@code MarshallingPayloadMethodProcessor} that resolves {@code @Endpoint} method arguments and return values, or
+ * through {@link ReactiveWebServiceTemplate#setMarshaller} on the client side.
+ *
+ * @author shanhy
+ * @date 2026-10-18 11:46
+ */
+public class PooledJaxb2Marshaller extends Jaxb2Marshaller {
+
+    /**
+     * Default maximum number of idle instances per pool.
+     */
+    public static final int DEFAULT_POOL_SIZE = 64;
+
+    private final ThreadLocal<Marshaller> leasedMarshaller = new ThreadLocal<>();
+
+    private final ThreadLocal<Unmarshaller> leasedUnmarshaller = new ThreadLocal<>();
+
+    private int poolSize = DEFAULT_POOL_SIZE;
+
+    private boolean leakDetection = false;
+
+    private BoundedObjectPool<Marshaller> marshallerPool;
+
+    private BoundedObjectPool<Unmarshaller> unmarshallerPool;
+
+    /**
+     * Sets the maximum number of idle instances kept per pool. Defaults to {@link #DEFAULT_POOL_SIZE}.
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Sets whether the pools detect leases that are never closed. Defaults to {@code false}.
+     *
+     * @see BoundedObjectPool#setLeakDetection(boolean)
+     */
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Returns the pool of JAXB marshallers, exposing hit/miss statistics.
+     */
+    public BoundedObjectPool<Marshaller> getMarshallerPool() {
+        return marshallerPool;
+    }
+
+    /**
+     * Returns the pool of JAXB unmarshallers, exposing hit/miss statistics.
+     */
+    public BoundedObjectPool<Unmarshaller> getUnmarshallerPool() {
+        return unmarshallerPool;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        marshallerPool = new BoundedObjectPool<>("marshaller", poolSize, super::createMarshaller,
+                marshaller -> marshaller.setAttachmentMarshaller(null));
+        marshallerPool.setLeakDetection(leakDetection);
+        unmarshallerPool = new BoundedObjectPool<>("unmarshaller", poolSize, super::createUnmarshaller,
+                unmarshaller -> unmarshaller.setAttachmentUnmarshaller(null));
+        unmarshallerPool.setLeakDetection(leakDetection);
+    }
+
+    @Override
+    public Marshaller createMarshaller() {
+        Marshaller marshaller = leasedMarshaller.get();
+        return marshaller != null ? marshaller : super.createMarshaller();
+    }
+
+    @Override
+    public Unmarshaller createUnmarshaller() {
+        Unmarshaller unmarshaller = leasedUnmarshaller.get();
+        return unmarshaller != null ? unmarshaller : super.createUnmarshaller();
+    }
+
+    @Override
+    public void marshal(Object graph, Result result, @Nullable MimeContainer mimeContainer)
+            throws XmlMappingException {
+        if (marshallerPool == null || leasedMarshaller.get() != null) {
+            super.marshal(graph, result, mimeContainer);
+            return;
+        }
+        try (BoundedObjectPool.Lease<Marshaller> lease = marshallerPool.lease()) {
+            leasedMarshaller.set(lease.get());
+            try {
+                super.marshal(graph, result, mimeContainer);
+            } finally {
+                leasedMarshaller.remove();
+            }
+        }
+    }
+
+    @Override
+    public Object unmarshal(Source source, @Nullable MimeContainer mimeContainer) throws XmlMappingException {
+        if (unmarshallerPool == null || leasedUnmarshaller.get() != null) {
+            return super.unmarshal(source, mimeContainer);
+        }
+        try (BoundedObjectPool.Lease<Unmarshaller> lease = unmarshallerPool.lease()) {
+            leasedUnmarshaller.set(lease.get());
+            try {
+                return super.unmarshal(source, mimeContainer);
+            } finally {
+                leasedUnmarshaller.remove();
+            }
+        }
+    }
+
+}
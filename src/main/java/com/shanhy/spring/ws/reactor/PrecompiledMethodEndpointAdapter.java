@@ -0,0 +1,250 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.adapter.AbstractMethodEndpointAdapter;
+import org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter;
+import org.springframework.ws.server.endpoint.adapter.method.MethodArgumentResolver;
+import org.springframework.ws.server.endpoint.adapter.method.MethodReturnValueHandler;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoots;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的方法端点适配器：每个端点方法只选择一次参数解析器和返回值处理器，并预先生成 MethodHandle，
+ * 调用时只需一次哈希查找和一次直接调用
+ *
+ * <p>Resolvers and return value handlers are those of the given {@link DefaultMethodEndpointAdapter}; endpoints
+ * whose method cannot be bound to a handle, such as methods of a JDK proxy's target class, are invoked through it.
+ * {@code @PayloadRoot} methods of {@code @Endpoint} beans are compiled by {@link #precompile}; any other endpoint is
+ * compiled on first use.
+ *
+ * @author shanhy
+ * @date 2026-10-18 20:30
+ */
+public class PrecompiledMethodEndpointAdapter extends AbstractMethodEndpointAdapter
+        implements InitializingBean, ApplicationContextAware, SmartInitializingSingleton {
+
+    private static final CompiledEndpoint UNSUPPORTED = new CompiledEndpoint(null, null, null, null, null);
+
+    private final Map<MethodEndpoint, CompiledEndpoint> compiledEndpoints = new ConcurrentHashMap<>();
+
+    private final DefaultMethodEndpointAdapter delegate;
+
+    private final boolean initializeDelegate;
+
+    private ApplicationContext applicationContext;
+
+    /**
+     * Creates a new adapter with the default resolvers and return value handlers.
+     */
+    public PrecompiledMethodEndpointAdapter() {
+        this(new DefaultMethodEndpointAdapter(), true);
+    }
+
+    /**
+     * Creates a new adapter with the resolvers and return value handlers of the given, initialized, adapter.
+     *
+     * @param delegate supplies resolvers and return value handlers, and invokes endpoints that cannot be compiled
+     */
+    public PrecompiledMethodEndpointAdapter(DefaultMethodEndpointAdapter delegate) {
+        this(delegate, false);
+    }
+
+    private PrecompiledMethodEndpointAdapter(DefaultMethodEndpointAdapter delegate, boolean initializeDelegate) {
+        Assert.notNull(delegate, "'delegate' must not be null");
+        this.delegate = delegate;
+        this.initializeDelegate = initializeDelegate;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (initializeDelegate) {
+            delegate.afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (applicationContext != null) {
+            precompile(applicationContext);
+        }
+    }
+
+    /**
+     * Compiles the {@code @PayloadRoot} methods of all {@code @Endpoint} beans of the given context.
+     *
+     * @param applicationContext the context holding the endpoints
+     */
+    public void precompile(ApplicationContext applicationContext) {
+        for (String beanName : applicationContext.getBeanNamesForAnnotation(Endpoint.class)) {
+            Class<?> endpointClass = applicationContext.getType(beanName);
+            if (endpointClass == null) {
+                continue;
+            }
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(endpointClass))) {
+                if (AnnotationUtils.findAnnotation(method, PayloadRoot.class) != null ||
+                        AnnotationUtils.findAnnotation(method, PayloadRoots.class) != null) {
+                    getCompiledEndpoint(new MethodEndpoint(beanName, applicationContext, method));
+                }
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Precompiled " + compiledEndpoints.size() + " endpoint methods");
+        }
+    }
+
+    /**
+     * Returns the number of endpoint methods compiled so far.
+     */
+    public int getCompiledEndpointCount() {
+        return compiledEndpoints.size();
+    }
+
+    @Override
+    protected boolean supportsInternal(MethodEndpoint methodEndpoint) {
+        return getCompiledEndpoint(methodEndpoint) != UNSUPPORTED;
+    }
+
+    @Override
+    protected void invokeInternal(MessageContext messageContext, MethodEndpoint methodEndpoint) throws Exception {
+        CompiledEndpoint compiledEndpoint = getCompiledEndpoint(methodEndpoint);
+        if (compiledEndpoint.handle == null) {
+            delegate.invoke(messageContext, methodEndpoint);
+            return;
+        }
+        compiledEndpoint.invoke(messageContext, methodEndpoint);
+    }
+
+    private CompiledEndpoint getCompiledEndpoint(MethodEndpoint methodEndpoint) {
+        return compiledEndpoints.computeIfAbsent(methodEndpoint, this::compile);
+    }
+
+    private CompiledEndpoint compile(MethodEndpoint methodEndpoint) {
+        MethodParameter[] parameters = methodEndpoint.getMethodParameters();
+        MethodArgumentResolver[] resolvers = new MethodArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            resolvers[i] = findResolver(parameters[i]);
+            if (resolvers[i] == null) {
+                return UNSUPPORTED;
+            }
+        }
+        MethodParameter returnType = methodEndpoint.getReturnType();
+        MethodReturnValueHandler returnValueHandler = null;
+        if (!Void.TYPE.equals(returnType.getParameterType())) {
+            returnValueHandler = findReturnValueHandler(returnType);
+            if (returnValueHandler == null) {
+                return UNSUPPORTED;
+            }
+        }
+        Method method = methodEndpoint.getMethod();
+        // a JDK proxy does not implement the target class declaring the method
+        MethodHandle handle = !Modifier.isStatic(method.getModifiers()) &&
+                method.getDeclaringClass().isInstance(methodEndpoint.getBean()) ? createHandle(method) : null;
+        return new CompiledEndpoint(handle, parameters, resolvers, returnValueHandler, returnType);
+    }
+
+    private MethodHandle createHandle(Method method) {
+        int parameterCount = method.getParameterCount();
+        try {
+            ReflectionUtils.makeAccessible(method);
+            // (Object bean, Object[] args) -> Object, so every endpoint is invoked through the same exact type
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.genericMethodType(parameterCount + 1));
+            return handle.asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not compile [" + method + "], it is invoked reflectively", ex);
+            }
+            return null;
+        }
+    }
+
+    private MethodArgumentResolver findResolver(MethodParameter parameter) {
+        List<MethodArgumentResolver> resolvers = delegate.getMethodArgumentResolvers();
+        if (resolvers != null) {
+            for (MethodArgumentResolver resolver : resolvers) {
+                if (resolver.supportsParameter(parameter)) {
+                    return resolver;
+                }
+            }
+        }
+        return null;
+    }
+
+    private MethodReturnValueHandler findReturnValueHandler(MethodParameter returnType) {
+        List<MethodReturnValueHandler> handlers = delegate.getMethodReturnValueHandlers();
+        if (handlers != null) {
+            for (MethodReturnValueHandler handler : handlers) {
+                if (handler.supportsReturnType(returnType)) {
+                    return handler;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class CompiledEndpoint {
+
+        private final MethodHandle handle;
+
+        private final MethodParameter[] parameters;
+
+        private final MethodArgumentResolver[] resolvers;
+
+        private final MethodReturnValueHandler returnValueHandler;
+
+        private final MethodParameter returnType;
+
+        private CompiledEndpoint(MethodHandle handle, MethodParameter[] parameters, MethodArgumentResolver[] resolvers,
+                                 MethodReturnValueHandler returnValueHandler, MethodParameter returnType) {
+            this.handle = handle;
+            this.parameters = parameters;
+            this.resolvers = resolvers;
+            this.returnValueHandler = returnValueHandler;
+            this.returnType = returnType;
+        }
+
+        private void invoke(MessageContext messageContext, MethodEndpoint methodEndpoint) throws Exception {
+            Object[] args = new Object[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++) {
+                args[i] = resolvers[i].resolveArgument(messageContext, parameters[i]);
+            }
+            Object returnValue;
+            try {
+                returnValue = (Object) handle.invokeExact(methodEndpoint.getBean(), args);
+            } catch (Exception | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Endpoint method threw " + ex, ex);
+            }
+            if (returnValueHandler != null) {
+                returnValueHandler.handleReturnValue(messageContext, returnType, returnValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.transport.TransportConstants;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 为请求确定 {@link PriorityDispatchExecutor} 的优先级，依次按请求头、SOAPAction、payload 根元素匹配
+ *
+ * @author shanhy
+ * @date 2026-10-18 16:55
+ */
+public class PriorityClassifier {
+
+    private String headerName;
+
+    private Map<String, Integer> soapActionPriorities = Collections.emptyMap();
+
+    private Map<QName, Integer> operationPriorities = Collections.emptyMap();
+
+    private int defaultPriority;
+
+    /**
+     * Sets the name of an HTTP header whose numeric value is the priority of the request.
+     */
+    public void setHeaderName(String headerName) {
+        this.headerName = headerName;
+    }
+
+    /**
+     * Sets the priorities by {@code SOAPAction}.
+     */
+    public void setSoapActionPriorities(Map<String, Integer> soapActionPriorities) {
+        this.soapActionPriorities = soapActionPriorities;
+    }
+
+    /**
+     * Sets the priorities by payload root element. Matching these requires the envelope to be sniffed.
+     */
+    public void setOperationPriorities(Map<QName, Integer> operationPriorities) {
+        this.operationPriorities = operationPriorities;
+    }
+
+    /**
+     * Sets the priority of requests no rule matches. Defaults to {@code 0}, the highest.
+     */
+    public void setDefaultPriority(int defaultPriority) {
+        this.defaultPriority = defaultPriority;
+    }
+
+    /**
+     * Returns the priority of the given request.
+     *
+     * @param request current HTTP request
+     * @param envelope supplies the sniffed envelope, only called if a payload root rule is configured
+     * @return the priority
+     */
+    public int classify(ServerHttpRequest request, Supplier<SoapEnvelopeSniffer.Result> envelope) {
+        if (headerName != null) {
+            String value = request.getHeaders().getFirst(headerName);
+            if (StringUtils.hasText(value)) {
+                try {
+                    return Integer.parseInt(value.trim());
+                } catch (NumberFormatException ex) {
+                    // fall through to the other rules
+                }
+            }
+        }
+        if (!soapActionPriorities.isEmpty()) {
+            String soapAction = request.getHeaders().getFirst(TransportConstants.HEADER_SOAP_ACTION);
+            Integer priority = soapAction != null ? soapActionPriorities.get(StringUtils.trimTrailingCharacter(
+                    StringUtils.trimLeadingCharacter(soapAction, '"'), '"')) : null;
+            if (priority != null) {
+                return priority;
+            }
+        }
+        if (!operationPriorities.isEmpty()) {
+            QName payloadRoot = envelope.get().getPayloadRoot();
+            Integer priority = payloadRoot != null ? operationPriorities.get(payloadRoot) : null;
+            if (priority != null) {
+                return priority;
+            }
+        }
+        return defaultPriority;
+    }
+}
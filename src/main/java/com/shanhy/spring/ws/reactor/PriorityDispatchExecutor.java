@@ -0,0 +1,292 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按优先级执行阻塞的 handleConnection 步骤：每个优先级一个队列，由固定数量的工作线程按严格优先级或加权轮询取出，
+ * 等待时间超过阈值的任务优先执行，避免低优先级任务饿死
+ *
+ * <p>Priority {@code 0} is the highest.
+ *
+ * @author shanhy
+ * @date 2026-10-18 16:40
+ */
+public class PriorityDispatchExecutor implements DisposableBean {
+
+    /**
+     * Default time after which a waiting task is served before any other.
+     */
+    public static final Duration DEFAULT_AGING_THRESHOLD = Duration.ofSeconds(2);
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Level[] levels;
+
+    private final Scheduler[] schedulers;
+
+    private final Semaphore available = new Semaphore(0);
+
+    private final Thread[] workers;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private volatile int[] schedule;
+
+    private volatile long agingThresholdNanos = DEFAULT_AGING_THRESHOLD.toNanos();
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new executor serving the given number of priorities, strictly in order.
+     *
+     * @param priorities the number of priorities
+     * @param workers the number of worker threads
+     */
+    public PriorityDispatchExecutor(int priorities, int workers) {
+        Assert.isTrue(priorities > 0, "'priorities' must be positive");
+        Assert.isTrue(workers > 0, "'workers' must be positive");
+        this.levels = new Level[priorities];
+        this.schedulers = new Scheduler[priorities];
+        for (int i = 0; i < priorities; i++) {
+            int priority = i;
+            levels[i] = new Level();
+            schedulers[i] = Schedulers.fromExecutor(task -> execute(priority, task));
+        }
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::work, "soap-priority-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers[i] = worker;
+        }
+    }
+
+    /**
+     * Serves the priorities in proportion to the given weights, one per priority, instead of strictly in order.
+     * Set to {@code null} to serve strictly in order.
+     */
+    public void setWeights(int... weights) {
+        if (weights == null) {
+            this.schedule = null;
+            return;
+        }
+        Assert.isTrue(weights.length == levels.length, "One weight per priority expected");
+        int total = 0;
+        for (int weight : weights) {
+            Assert.isTrue(weight > 0, "Weights must be positive");
+            total += weight;
+        }
+        // interleaved so that a heavy priority does not get its whole share in one burst
+        int[] schedule = new int[total];
+        int[] credits = new int[weights.length];
+        for (int slot = 0; slot < total; slot++) {
+            int selected = 0;
+            for (int priority = 0; priority < weights.length; priority++) {
+                credits[priority] += weights[priority];
+                if (credits[priority] > credits[selected]) {
+                    selected = priority;
+                }
+            }
+            credits[selected] -= total;
+            schedule[slot] = selected;
+        }
+        this.schedule = schedule;
+    }
+
+    /**
+     * Sets the time after which a waiting task is served before any other, regardless of its priority. Defaults to
+     * {@link #DEFAULT_AGING_THRESHOLD}.
+     */
+    public void setAgingThreshold(Duration agingThreshold) {
+        this.agingThresholdNanos = agingThreshold.toNanos();
+    }
+
+    /**
+     * Returns a {@link Scheduler} whose tasks are executed with the given priority.
+     *
+     * @param priority the priority, clamped to the supported range
+     */
+    public Scheduler getScheduler(int priority) {
+        return schedulers[clamp(priority)];
+    }
+
+    /**
+     * Queues the given task with the given priority.
+     *
+     * @param priority the priority, clamped to the supported range
+     * @param task the task
+     */
+    public void execute(int priority, Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        Level level = levels[clamp(priority)];
+        level.queue.offer(new Task(task, System.nanoTime()));
+        available.release();
+    }
+
+    /**
+     * Returns an {@link Executor} queuing its tasks with the given priority.
+     */
+    public Executor getExecutor(int priority) {
+        return task -> execute(priority, task);
+    }
+
+    /**
+     * Returns the number of tasks waiting with the given priority.
+     */
+    public int getQueueSize(int priority) {
+        return levels[clamp(priority)].queue.size();
+    }
+
+    /**
+     * Returns the number of tasks started with the given priority.
+     */
+    public long getStarted(int priority) {
+        return levels[clamp(priority)].started.sum();
+    }
+
+    /**
+     * Returns the average time tasks of the given priority waited before they started, in milliseconds.
+     */
+    public double getAverageWaitMillis(int priority) {
+        Level level = levels[clamp(priority)];
+        long started = level.started.sum();
+        return started == 0 ? 0.0d : level.waitNanos.sum() / (started * 1_000_000.0d);
+    }
+
+    /**
+     * Returns the longest time a task of the given priority waited before it started, in milliseconds.
+     */
+    public long getMaxWaitMillis(int priority) {
+        return TimeUnit.NANOSECONDS.toMillis(levels[clamp(priority)].maxWaitNanos.get());
+    }
+
+    /**
+     * Returns the number of tasks of the given priority that were started early because they waited too long.
+     */
+    public long getAged(int priority) {
+        return levels[clamp(priority)].aged.sum();
+    }
+
+    private int clamp(int priority) {
+        return Math.max(0, Math.min(priority, levels.length - 1));
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                available.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Task task;
+            int priority;
+            do {
+                priority = select();
+                task = priority >= 0 ? levels[priority].queue.poll() : null;
+            } while (task == null && running);
+            if (task == null) {
+                return;
+            }
+            Level level = levels[priority];
+            long waitNanos = System.nanoTime() - task.enqueuedNanos;
+            level.started.increment();
+            level.waitNanos.add(waitNanos);
+            level.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            try {
+                task.runnable.run();
+            } catch (Throwable ex) {
+                logger.warn("Dispatch task failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Returns the priority to take the next task from, or {@code -1} if all queues appear empty.
+     */
+    private int select() {
+        long now = System.nanoTime();
+        // starvation protection: lowest priority first, since it is the one that starves
+        for (int priority = levels.length - 1; priority > 0; priority--) {
+            Task head = levels[priority].queue.peek();
+            if (head != null && now - head.enqueuedNanos > agingThresholdNanos) {
+                levels[priority].aged.increment();
+                return priority;
+            }
+        }
+        int[] schedule = this.schedule;
+        if (schedule != null) {
+            int start = Math.floorMod(cursor.getAndIncrement(), schedule.length);
+            for (int i = 0; i < schedule.length; i++) {
+                int priority = schedule[(start + i) % schedule.length];
+                if (!levels[priority].queue.isEmpty()) {
+                    return priority;
+                }
+            }
+        } else {
+            for (int priority = 0; priority < levels.length; priority++) {
+                if (!levels[priority].queue.isEmpty()) {
+                    return priority;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stops the worker threads; tasks still queued are not executed.
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Scheduler scheduler : schedulers) {
+            scheduler.dispose();
+        }
+    }
+
+    private static final class Level {
+
+        private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+
+        private final LongAdder started = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private final LongAdder aged = new LongAdder();
+
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+
+    private static final class Task {
+
+        private final Runnable runnable;
+
+        private final long enqueuedNanos;
+
+        private Task(Runnable runnable, long enqueuedNanos) {
+            this.runnable = runnable;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
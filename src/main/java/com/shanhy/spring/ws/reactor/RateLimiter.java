@@ -0,0 +1,228 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按客户端限流，使用 GCRA（通用信元速率算法）：每个客户端只保存一个理论到达时间，以 CAS 无锁更新，
+ * 客户端分段保存在 LRU 中并有硬上限，超出上限的新客户端共享所在分段的溢出状态，空闲客户端按固定间隔清除
+ *
+ * @author shanhy
+ * @date 2026-10-18 18:10
+ */
+public class RateLimiter {
+
+    /**
+     * Default maximum number of tracked clients.
+     */
+    public static final int DEFAULT_MAX_CLIENTS = 10000;
+
+    private static final int SEGMENTS = 16;
+
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final LongAdder permitted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong nextSweep;
+
+    private final long sweepIntervalNanos;
+
+    private Function<ServerHttpRequest, String> keyResolver = clientAddress();
+
+    private volatile int maxClients = DEFAULT_MAX_CLIENTS;
+
+    /**
+     * Creates a new rate limiter.
+     *
+     * @param permitsPerSecond the sustained rate per client
+     * @param burst the number of requests a client may send at once after being idle
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        Assert.isTrue(permitsPerSecond > 0, "'permitsPerSecond' must be positive");
+        Assert.isTrue(burst > 0, "'burst' must be positive");
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = emissionIntervalNanos * burst;
+        // an entry idle for the burst period has a full bucket again
+        this.sweepIntervalNanos = Math.max(burstNanos, MIN_SWEEP_INTERVAL_NANOS);
+        this.nextSweep = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Sets the function identifying the client of a request. Requests for which it returns {@code null} are not
+     * limited. Defaults to {@link #clientAddress()}.
+     */
+    public void setKeyResolver(Function<ServerHttpRequest, String> keyResolver) {
+        Assert.notNull(keyResolver, "'keyResolver' must not be null");
+        this.keyResolver = keyResolver;
+    }
+
+    /**
+     * Sets the maximum number of tracked clients, split evenly across segments. When a segment is full, its least
+     * recently used client is evicted if it is idle; otherwise the new client shares the rate of the segment's overflow
+     * entry with all other clients that did not fit. Defaults to {@link #DEFAULT_MAX_CLIENTS}.
+     */
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Identifies the client by its IP address.
+     */
+    public static Function<ServerHttpRequest, String> clientAddress() {
+        return request -> {
+            InetSocketAddress address = request.getRemoteAddress();
+            if (address == null) {
+                return null;
+            }
+            return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+        };
+    }
+
+    /**
+     * Identifies the client by the value of the given header, such as an API key or a forwarded client identity.
+     */
+    public static Function<ServerHttpRequest, String> header(String headerName) {
+        return request -> {
+            String value = request.getHeaders().getFirst(headerName);
+            return StringUtils.hasLength(value) ? value : null;
+        };
+    }
+
+    /**
+     * Takes a permit for the client of the given request.
+     *
+     * @param request current HTTP request
+     * @return {@code 0} if the request is permitted, otherwise the number of nanoseconds until it would be
+     */
+    public long tryAcquire(ServerHttpRequest request) {
+        String key = keyResolver.apply(request);
+        return key != null ? tryAcquire(key) : 0L;
+    }
+
+    /**
+     * Takes a permit for the given client.
+     *
+     * @param key the client key
+     * @return {@code 0} if the request is permitted, otherwise the number of nanoseconds until it would be
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        long sweep = nextSweep.get();
+        if (now - sweep >= 0 && nextSweep.compareAndSet(sweep, now + sweepIntervalNanos)) {
+            evictIdle(now);
+        }
+        int hash = key.hashCode();
+        Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        AtomicLong theoreticalArrivalTime = segment.get(key, now, Math.max(1, maxClients / SEGMENTS));
+        for (;;) {
+            long current = theoreticalArrivalTime.get();
+            long next = (current - now > 0 ? current : now) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                rejected.increment();
+                return excess;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                permitted.increment();
+                return 0L;
+            }
+        }
+    }
+
+    private void evictIdle(long now) {
+        for (Segment segment : segments) {
+            segment.evictIdle(now);
+        }
+    }
+
+    /**
+     * Returns the number of permitted requests.
+     */
+    public long getPermitted() {
+        return permitted.sum();
+    }
+
+    /**
+     * Returns the number of rejected requests.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of clients currently tracked.
+     */
+    public int getTrackedClients() {
+        int trackedClients = 0;
+        for (Segment segment : segments) {
+            trackedClients += segment.size();
+        }
+        return trackedClients;
+    }
+
+    /**
+     * A bounded share of the tracked clients, in least recently used order.
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<String, AtomicLong> theoreticalArrivalTimes = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Shared by the clients that found the segment full of active ones.
+         */
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+
+        private synchronized AtomicLong get(String key, long now, int capacity) {
+            AtomicLong theoreticalArrivalTime = theoreticalArrivalTimes.get(key);
+            if (theoreticalArrivalTime != null) {
+                return theoreticalArrivalTime;
+            }
+            if (theoreticalArrivalTimes.size() >= capacity) {
+                Iterator<AtomicLong> eldest = theoreticalArrivalTimes.values().iterator();
+                if (!isIdle(eldest.next(), now)) {
+                    return overflow;
+                }
+                eldest.remove();
+            }
+            theoreticalArrivalTime = new AtomicLong(now);
+            theoreticalArrivalTimes.put(key, theoreticalArrivalTime);
+            return theoreticalArrivalTime;
+        }
+
+        private synchronized void evictIdle(long now) {
+            theoreticalArrivalTimes.values().removeIf(theoreticalArrivalTime -> isIdle(theoreticalArrivalTime, now));
+        }
+
+        private synchronized int size() {
+            return theoreticalArrivalTimes.size();
+        }
+
+        /**
+         * A client whose theoretical arrival time has passed has a full bucket, so forgetting it changes nothing; a
+         * concurrent acquire on an evicted entry may be lost, at most granting that client one extra request.
+         */
+        private static boolean isIdle(AtomicLong theoreticalArrivalTime, long now) {
+            return theoreticalArrivalTime.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 响应式端点拦截器：在响应式分发路径上围绕 SOAP 消息处理执行，适合调用远程服务的认证、审计等 I/O 密集型横切逻辑，
+ * 等待期间不占用线程
+ *
+ * <p>Unlike an {@link org.springframework.ws.server.EndpointInterceptor}, it runs before the message is parsed, so it
+ * sees the HTTP request and the values sniffed from the envelope rather than the {@code MessageContext}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 20:50
+ */
+public interface ReactiveEndpointInterceptor {
+
+    /**
+     * Intercepts a request before it is dispatched, and before an idempotent replay is served. Interceptors run in
+     * order, and the first one to return {@code false} stops the chain.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response; if the request is stopped without a status, 403: Forbidden is sent
+     * @param envelope supplies the values sniffed from the envelope
+     * @return whether to proceed; empty means {@code true}
+     */
+    Mono<Boolean> preHandle(ServerHttpRequest request, ServerHttpResponse response,
+                            Supplier<SoapEnvelopeSniffer.Result> envelope);
+
+    /**
+     * Intercepts a handled request before its response is written, in reverse order. The status and headers may
+     * still be changed, the body may not.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param envelope supplies the values sniffed from the envelope
+     * @return completion of the interception
+     */
+    Mono<Void> postHandle(ServerHttpRequest request, ServerHttpResponse response,
+                          Supplier<SoapEnvelopeSniffer.Result> envelope);
+}
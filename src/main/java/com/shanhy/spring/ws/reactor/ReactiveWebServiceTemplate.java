@@ -0,0 +1,236 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceFaultException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.WebServiceMessageCallback;
+import org.springframework.ws.client.core.WebServiceMessageExtractor;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.support.TransportUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * 新增实现，基于 {@link WebClientConnection} 的非阻塞 WebServiceTemplate，所有调用返回 {@link Mono}
+ *
+ * <p>Connection pooling is provided by the given {@link WebClient}; the default one is backed by the shared
+ * reactor-netty connection pool.
+ *
+ * @author shanhy
+ * @date 2026-10-18 10:58
+ */
+public class ReactiveWebServiceTemplate implements InitializingBean {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private WebServiceMessageFactory messageFactory;
+
+    private WebClient webClient = WebClient.create();
+
+    private DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private Marshaller marshaller;
+
+    private Unmarshaller unmarshaller;
+
+    private String defaultUri;
+
+    private Duration timeout;
+
+    private int maxInMemorySize = WebClientConnection.DEFAULT_MAX_IN_MEMORY_SIZE;
+
+    public ReactiveWebServiceTemplate() {
+    }
+
+    /**
+     * Creates a new {@code ReactiveWebServiceTemplate} based on the given message factory.
+     *
+     * @param messageFactory the message factory to use
+     */
+    public ReactiveWebServiceTemplate(WebServiceMessageFactory messageFactory) {
+        this.messageFactory = messageFactory;
+    }
+
+    /**
+     * Sets the message factory used for creating messages.
+     */
+    public void setMessageFactory(WebServiceMessageFactory messageFactory) {
+        this.messageFactory = messageFactory;
+    }
+
+    /**
+     * Sets the {@link WebClient} used to perform the exchanges. Defaults to {@link WebClient#create()}.
+     */
+    public void setWebClient(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    /**
+     * Sets the factory used to allocate request buffers. Defaults to a {@link DefaultDataBufferFactory}.
+     */
+    public void setBufferFactory(DataBufferFactory bufferFactory) {
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * Sets the marshaller used for {@code marshalSendAndReceive} operations.
+     */
+    public void setMarshaller(Marshaller marshaller) {
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Sets the unmarshaller used for {@code marshalSendAndReceive} operations.
+     */
+    public void setUnmarshaller(Unmarshaller unmarshaller) {
+        this.unmarshaller = unmarshaller;
+    }
+
+    /**
+     * Sets the default URI used on operations that do not have a URI parameter.
+     */
+    public void setDefaultUri(String defaultUri) {
+        this.defaultUri = defaultUri;
+    }
+
+    /**
+     * Sets the default timeout of a single call, from sending the request until the complete response has been
+     * received. Defaults to none.
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sets the maximum size of a response, which is buffered before it is read; set to {@code -1} for no limit.
+     * Defaults to {@link WebClientConnection#DEFAULT_MAX_IN_MEMORY_SIZE}.
+     */
+    public void setMaxInMemorySize(int maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(messageFactory, "Property 'messageFactory' is required");
+        Assert.notNull(webClient, "Property 'webClient' is required");
+        Assert.notNull(bufferFactory, "Property 'bufferFactory' is required");
+    }
+
+    /**
+     * Sends a marshalled request payload to the default URI and unmarshals the response payload.
+     *
+     * @param requestPayload the object to marshal into the request message payload
+     * @return the unmarshalled response payload, or an empty {@code Mono} if there is no response
+     */
+    public <T> Mono<T> marshalSendAndReceive(Object requestPayload) {
+        return marshalSendAndReceive(defaultUri, requestPayload, null, timeout);
+    }
+
+    /**
+     * Sends a marshalled request payload to the given URI and unmarshals the response payload.
+     *
+     * @param uri the URI to send the message to
+     * @param requestPayload the object to marshal into the request message payload
+     * @return the unmarshalled response payload, or an empty {@code Mono} if there is no response
+     */
+    public <T> Mono<T> marshalSendAndReceive(String uri, Object requestPayload) {
+        return marshalSendAndReceive(uri, requestPayload, null, timeout);
+    }
+
+    /**
+     * Sends a marshalled request payload to the given URI and unmarshals the response payload.
+     *
+     * @param uri the URI to send the message to
+     * @param requestPayload the object to marshal into the request message payload
+     * @param requestCallback callback to change the message after marshalling, may be {@code null}
+     * @param timeout the timeout of this call, or {@code null} for none
+     * @return the unmarshalled response payload, or an empty {@code Mono} if there is no response
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> marshalSendAndReceive(String uri, Object requestPayload,
+                                             WebServiceMessageCallback requestCallback, Duration timeout) {
+        return sendAndReceive(uri, request -> {
+            if (requestPayload != null) {
+                Assert.state(marshaller != null, "No marshaller registered");
+                MarshallingUtils.marshal(marshaller, requestPayload, request);
+            }
+            if (requestCallback != null) {
+                requestCallback.doWithMessage(request);
+            }
+        }, response -> {
+            Assert.state(unmarshaller != null, "No unmarshaller registered");
+            return (T) MarshallingUtils.unmarshal(unmarshaller, response);
+        }, timeout);
+    }
+
+    /**
+     * Sends a web service message that can be manipulated with the given callback, and extracts the result of the
+     * response with the given extractor.
+     *
+     * @param uri the URI to send the message to
+     * @param requestCallback callback to change the message, may be {@code null}
+     * @param responseExtractor object that extracts the result from the response message
+     * @param timeout the timeout of this call, or {@code null} for none
+     * @return the extracted result, or an empty {@code Mono} if there is no response
+     */
+    public <T> Mono<T> sendAndReceive(String uri, WebServiceMessageCallback requestCallback,
+                                      WebServiceMessageExtractor<T> responseExtractor, Duration timeout) {
+        Assert.notNull(uri, "'uri' must not be null");
+        Assert.notNull(responseExtractor, "'responseExtractor' must not be null");
+        return Mono.defer(() -> {
+            WebClientConnection connection = new WebClientConnection(webClient, URI.create(uri), bufferFactory);
+            connection.setMaxInMemorySize(maxInMemorySize);
+            try {
+                WebServiceMessage request = messageFactory.createWebServiceMessage();
+                if (requestCallback != null) {
+                    requestCallback.doWithMessage(request);
+                }
+                connection.send(request);
+            } catch (Exception ex) {
+                TransportUtils.closeConnection(connection);
+                return Mono.error(ex);
+            }
+            return connection.exchange(timeout)
+                    .then(Mono.fromCallable(() -> handleResponse(connection, responseExtractor)))
+                    .doFinally(signal -> TransportUtils.closeConnection(connection));
+        });
+    }
+
+    private <T> T handleResponse(WebClientConnection connection, WebServiceMessageExtractor<T> responseExtractor)
+            throws Exception {
+        // a SOAP fault comes with a 500 status and an XML body, and is parsed like any other response
+        if (connection.hasError() && !connection.hasFault()) {
+            throw new WebServiceTransportException(connection.getErrorMessage());
+        }
+        if (!connection.hasResponse()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Received no response for request sent to [" + connection.getUri() + "]");
+            }
+            return null;
+        }
+        WebServiceMessage response = connection.receive(messageFactory);
+        if (response instanceof FaultAwareWebServiceMessage && ((FaultAwareWebServiceMessage) response).hasFault()) {
+            if (response instanceof SoapMessage) {
+                throw new SoapFaultClientException((SoapMessage) response);
+            }
+            throw new WebServiceFaultException((FaultAwareWebServiceMessage) response);
+        }
+        return responseExtractor.extractData(response);
+    }
+
+}
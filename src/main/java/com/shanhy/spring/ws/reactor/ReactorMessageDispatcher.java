@@ -1,20 +1,28 @@
 package com.shanhy.spring.ws.reactor;
 
+import com.shanhy.spring.ws.reactor.SoapFaultCatalog.TransportFault;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.util.ClassUtils;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.servlet.FrameworkServlet;
 import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.server.EndpointAdapter;
+import org.springframework.ws.server.MessageDispatcher;
+import org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter;
 import org.springframework.ws.support.DefaultStrategiesHelper;
 import org.springframework.ws.support.WebUtils;
 import org.springframework.ws.transport.WebServiceMessageReceiver;
@@ -25,8 +33,13 @@ import org.springframework.ws.transport.http.XsdSchemaHandlerAdapter;
 import org.springframework.ws.wsdl.WsdlDefinition;
 import org.springframework.xml.xsd.XsdSchema;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 重写 MessageDispatcher
@@ -34,7 +47,7 @@ import java.util.Map;
  * @author shanhy
  * @date 2022-05-10 13:24
  */
-public class ReactorMessageDispatcher implements ApplicationContextAware {
+public class ReactorMessageDispatcher implements ApplicationContextAware, DisposableBean {
 
     private final Log logger = LogFactory.getLog(getClass());
 
@@ -121,6 +134,34 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
 
     private boolean transformSchemaLocations = false;
 
+    private DispatchMode dispatchMode;
+
+    private boolean watchDefinitions = false;
+
+    private XmlParserFactories xmlParserFactories = XmlParserFactories.getShared();
+
+    private DefinitionChangeTracker definitionChangeTracker;
+
+    private boolean serveDefinitionsFromFiles = false;
+
+    private boolean precompileEndpoints = false;
+
+    private RenderedFileCache renderedFileCache;
+
+    private SoapAccessLog accessLog;
+
+    private RateLimiter rateLimiter;
+
+    private SoapProxy soapProxy;
+
+    private MemoryBudget memoryBudget;
+
+    private DiskSpool diskSpool;
+
+    private EventLoopWatchdog eventLoopWatchdog;
+
+    private List<ReactiveEndpointInterceptor> reactiveInterceptors = Collections.emptyList();
+
     /**
      * Public constructor, necessary for some Web application servers.
      */
@@ -227,6 +268,194 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
         this.transformSchemaLocations = transformSchemaLocations;
     }
 
+    /**
+     * Returns how the blocking message handling step is executed, or {@code null} if left to the handler adapter.
+     */
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * Sets how the blocking message handling step is executed. Left to the handler adapter, which runs it on the event
+     * loop, by default.
+     */
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    /**
+     * Returns the {@link XmlParserFactories} used by the handler adapters.
+     */
+    public XmlParserFactories getXmlParserFactories() {
+        return xmlParserFactories;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} used by the handler adapters, for WSDL and XSD rendering, Fast Infoset
+     * transcoding and envelope sniffing, and by a {@link SoapProxy} that has none of its own. Defaults to the shared
+     * registry.
+     *
+     * <p>Messages are parsed by the {@link WebServiceMessageFactory}; the default SAAJ implementation pools its own
+     * parsers and is not affected by this setting.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
+    /**
+     * Indicates whether file-based WSDL definitions and XSD schemas are watched for changes.
+     */
+    public boolean isWatchDefinitions() {
+        return watchDefinitions;
+    }
+
+    /**
+     * Sets whether file-based WSDL definitions and XSD schemas are watched for changes in the background. When
+     * enabled, last modified dates are served from memory, and changed definitions that are
+     * {@link InitializingBean InitializingBeans} are reloaded. Defaults to {@code false}.
+     */
+    public void setWatchDefinitions(boolean watchDefinitions) {
+        this.watchDefinitions = watchDefinitions;
+    }
+
+    /**
+     * Indicates whether WSDL definitions and XSD schemas are rendered to files once and served from there.
+     */
+    public boolean isServeDefinitionsFromFiles() {
+        return serveDefinitionsFromFiles;
+    }
+
+    /**
+     * Sets whether WSDL definitions and XSD schemas are rendered to temporary files at startup, and served from there
+     * with zero-copy file transfer where the response supports it. Only applies while location transformation is
+     * disabled. Defaults to {@code false}.
+     */
+    public void setServeDefinitionsFromFiles(boolean serveDefinitionsFromFiles) {
+        this.serveDefinitionsFromFiles = serveDefinitionsFromFiles;
+    }
+
+    /**
+     * Indicates whether endpoint method invocation is compiled at startup.
+     */
+    public boolean isPrecompileEndpoints() {
+        return precompileEndpoints;
+    }
+
+    /**
+     * Sets whether the {@link DefaultMethodEndpointAdapter}s of the {@link MessageDispatcher} are replaced with
+     * {@link PrecompiledMethodEndpointAdapter}s, compiled when the strategies are initialized. Defaults to
+     * {@code false}.
+     */
+    public void setPrecompileEndpoints(boolean precompileEndpoints) {
+        this.precompileEndpoints = precompileEndpoints;
+    }
+
+    /**
+     * Returns the {@link SoapAccessLog} calls are recorded in, or {@code null} if none.
+     */
+    public SoapAccessLog getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Sets the {@link SoapAccessLog} every call is recorded in. Defaults to none.
+     *
+     * <p>The access log is owned by the caller, which destroys it once the dispatcher is no longer in use.
+     */
+    public void setAccessLog(SoapAccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    /**
+     * Returns the {@link RateLimiter} applied to messages, or {@code null} if none.
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the {@link RateLimiter} applied to messages. Requests over the limit get a 429: Too Many Requests fault
+     * before their body is read. WSDL and XSD requests are not limited. Defaults to none.
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Returns the {@link SoapProxy} messages are routed through, or {@code null} if none.
+     */
+    public SoapProxy getSoapProxy() {
+        return soapProxy;
+    }
+
+    /**
+     * Sets the {@link SoapProxy} messages are routed through. Messages matching one of its routes are streamed to the
+     * backend instead of being handled locally. Defaults to none.
+     */
+    public void setSoapProxy(SoapProxy soapProxy) {
+        this.soapProxy = soapProxy;
+    }
+
+    /**
+     * Returns the {@link MemoryBudget} shared by all request bodies, or {@code null} if none.
+     */
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the {@link MemoryBudget} shared by all request bodies handled by this dispatcher. Defaults to none.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the {@link DiskSpool} large request bodies are written to, or {@code null} if none.
+     */
+    public DiskSpool getDiskSpool() {
+        return diskSpool;
+    }
+
+    /**
+     * Sets the {@link DiskSpool} request bodies above its threshold are written to. Defaults to none.
+     */
+    public void setDiskSpool(DiskSpool diskSpool) {
+        this.diskSpool = diskSpool;
+    }
+
+    /**
+     * Returns the {@link EventLoopWatchdog} reporting stalled event loops, or {@code null} if none.
+     */
+    public EventLoopWatchdog getEventLoopWatchdog() {
+        return eventLoopWatchdog;
+    }
+
+    /**
+     * Sets the {@link EventLoopWatchdog} reporting SOAP, WSDL and XSD work that runs too long on a non-blocking
+     * thread. Covers assembling the response and subscribing to it, which runs deferred work such as rendering a WSDL
+     * on first use; work run on later signals, such as the arrival of the request body, is not covered. Defaults to
+     * none.
+     */
+    public void setEventLoopWatchdog(EventLoopWatchdog eventLoopWatchdog) {
+        this.eventLoopWatchdog = eventLoopWatchdog;
+    }
+
+    /**
+     * Returns the {@link ReactiveEndpointInterceptor}s run around every SOAP request.
+     */
+    public List<ReactiveEndpointInterceptor> getReactiveInterceptors() {
+        return reactiveInterceptors;
+    }
+
+    /**
+     * Sets the {@link ReactiveEndpointInterceptor}s run around every SOAP request, on the reactive dispatch path and
+     * without holding a thread while they wait. Defaults to none.
+     */
+    public void setReactiveInterceptors(List<ReactiveEndpointInterceptor> reactiveInterceptors) {
+        this.reactiveInterceptors = reactiveInterceptors;
+    }
+
     /**
      * Returns the bean name used to lookup a {@link WebServiceMessageReceiverHandlerAdapter}.
      */
@@ -274,17 +503,165 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
 
     public Mono<Void> doService(ServerHttpRequest request, ServerHttpResponse response)
             throws Exception {
+        if (accessLog == null) {
+            return dispatch(request, response);
+        }
+        SoapRequestInfo requestInfo = new SoapRequestInfo();
+        return dispatch(request, response)
+                .doFinally(signal -> logAccess(request, response, requestInfo))
+                .contextWrite(Context.of(SoapRequestInfo.class, requestInfo));
+    }
+
+    private Mono<Void> dispatch(ServerHttpRequest request, ServerHttpResponse response) throws Exception {
+        if (eventLoopWatchdog == null) {
+            return dispatchInternal(request, response);
+        }
+        String operation = request.getMethodValue() + ' ' + request.getURI().getPath();
+        Mono<Void> dispatch;
+        try (EventLoopWatchdog.Section section = eventLoopWatchdog.enter(operation)) {
+            dispatch = dispatchInternal(request, response);
+        }
+        return eventLoopWatchdog.watch(operation, dispatch);
+    }
+
+    private Mono<Void> dispatchInternal(ServerHttpRequest request, ServerHttpResponse response) throws Exception {
         WsdlDefinition definition = getWsdlDefinition(request);
         if (definition != null) {
+            // dates and tags are only reliable while changes are tracked
+            if (definitionChangeTracker != null && checkNotModified(request, response,
+                    reactorWsdlDefinitionHandlerAdapter.getLastModified(request, definition),
+                    reactorWsdlDefinitionHandlerAdapter.getETag(request, definition))) {
+                return response.setComplete();
+            }
             return reactorWsdlDefinitionHandlerAdapter.handle(request, response, definition);
         }
         XsdSchema schema = getXsdSchema(request);
         if (schema != null) {
+            if (definitionChangeTracker != null && checkNotModified(request, response,
+                    reactorXsdSchemaHandlerAdapter.getLastModified(request, schema),
+                    reactorXsdSchemaHandlerAdapter.getETag(request, schema))) {
+                return response.setComplete();
+            }
             return reactorXsdSchemaHandlerAdapter.handle(request, response, schema);
         }
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(request);
+            if (waitNanos > 0) {
+                return rejectRateLimited(request, response, waitNanos);
+            }
+        }
+        if (soapProxy != null && HttpTransportConstants.METHOD_POST.equals(request.getMethodValue())) {
+            return soapProxy.route(request, response, localRequest -> {
+                try {
+                    return reactorMessageReceiverHandlerAdapter.handle(localRequest, response, messageReceiver);
+                } catch (Exception ex) {
+                    return Mono.error(ex);
+                }
+            });
+        }
         return reactorMessageReceiverHandlerAdapter.handle(request, response, messageReceiver);
     }
 
+    /**
+     * Responds to a request over the rate limit, without reading its body.
+     *
+     * <p>Default implementation sets the status to 429: Too Many Requests and a {@code Retry-After} header, and writes
+     * the corresponding SOAP fault.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param waitNanos the time until the client would be permitted again
+     * @return completion of the response
+     */
+    protected Mono<Void> rejectRateLimited(ServerHttpRequest request, ServerHttpResponse response, long waitNanos) {
+        response.setStatusCode(TransportFault.TOO_MANY_REQUESTS.getStatus());
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+        return reactorMessageReceiverHandlerAdapter.writeTransportFault(request, response,
+                TransportFault.TOO_MANY_REQUESTS);
+    }
+
+    private void logAccess(ServerHttpRequest request, ServerHttpResponse response, SoapRequestInfo requestInfo) {
+        Integer status = response.getRawStatusCode();
+        String operation = requestInfo.getOperation();
+        long bytesIn = requestInfo.getBytesIn();
+        accessLog.log(operation != null ? operation : request.getURI().getPath(),
+                status != null ? status : HttpStatus.OK.value(),
+                requestInfo.getFaultCode(),
+                bytesIn >= 0 ? bytesIn : request.getHeaders().getContentLength(),
+                response.getHeaders().getContentLength(),
+                System.nanoTime() - requestInfo.getStartNanos(),
+                request.getRemoteAddress());
+    }
+
+    /**
+     * Applies the conditional GET rules for the given last modified date: sets the {@code Last-Modified} header, and
+     * sets the status to 304: Not Modified if the {@code If-Modified-Since} header is not older.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param lastModified the last modified date, or a negative value if unknown
+     * @return {@code true} if the response is complete without a body
+     */
+    protected boolean checkNotModified(ServerHttpRequest request, ServerHttpResponse response, long lastModified) {
+        return checkNotModified(request, response, lastModified, null);
+    }
+
+    /**
+     * Applies the conditional GET rules for the given last modified date and entity tag: sets the {@code ETag} and
+     * {@code Last-Modified} headers, and sets the status to 304: Not Modified if the {@code If-None-Match} header
+     * matches the tag, or, when there is no such header, if the {@code If-Modified-Since} header is not older.
+     *
+     * <p>Only applied while definitions are {@linkplain #setWatchDefinitions watched}, as the dates and tags are not
+     * kept up to date otherwise.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param lastModified the last modified date, or a negative value if unknown
+     * @param eTag the quoted entity tag, or {@code null} if unknown
+     * @return {@code true} if the response is complete without a body
+     */
+    protected boolean checkNotModified(ServerHttpRequest request, ServerHttpResponse response, long lastModified,
+                                       String eTag) {
+        // HTTP dates have a one second resolution
+        long lastModifiedSeconds = lastModified / 1000 * 1000;
+        if (lastModified >= 0) {
+            response.getHeaders().setLastModified(lastModifiedSeconds);
+        }
+        if (eTag != null) {
+            response.getHeaders().setETag(eTag);
+            List<String> ifNoneMatch;
+            try {
+                ifNoneMatch = request.getHeaders().getIfNoneMatch();
+            } catch (IllegalArgumentException ex) {
+                ifNoneMatch = Collections.emptyList();
+            }
+            // If-None-Match takes precedence over If-Modified-Since
+            if (!ifNoneMatch.isEmpty()) {
+                for (String candidate : ifNoneMatch) {
+                    if ("*".equals(candidate) || stripWeakPrefix(candidate).equals(eTag)) {
+                        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        long ifModifiedSince = request.getHeaders().getIfModifiedSince();
+        if (ifModifiedSince >= lastModifiedSeconds) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
     /**
      * This implementation calls {@link #initStrategies}.
      */
@@ -362,6 +739,9 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
         initMessageReceiver(context);
         initWsdlDefinitions(context);
         initXsdSchemas(context);
+        initDefinitionChangeTracker();
+        initRenderedFileCache();
+        initSoapProxy();
     }
 
 
@@ -374,6 +754,22 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
                 reactorMessageReceiverHandlerAdapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
             }
             initWebServiceMessageFactory(context);
+            if (getDispatchMode() != null) {
+                reactorMessageReceiverHandlerAdapter.setDispatchMode(getDispatchMode());
+            }
+            if (getMemoryBudget() != null) {
+                reactorMessageReceiverHandlerAdapter.setMemoryBudget(getMemoryBudget());
+            }
+            if (getDiskSpool() != null) {
+                reactorMessageReceiverHandlerAdapter.setDiskSpool(getDiskSpool());
+            }
+            if (getEventLoopWatchdog() != null) {
+                reactorMessageReceiverHandlerAdapter.setEventLoopWatchdog(getEventLoopWatchdog());
+            }
+            if (getReactiveInterceptors() != null && !getReactiveInterceptors().isEmpty()) {
+                reactorMessageReceiverHandlerAdapter.setReactiveInterceptors(getReactiveInterceptors());
+            }
+            reactorMessageReceiverHandlerAdapter.setXmlParserFactories(getXmlParserFactories());
             reactorMessageReceiverHandlerAdapter.afterPropertiesSet();
         } catch (Exception ex) {
             throw new BeanInitializationException("Could not initialize WebServiceMessageReceiverHandlerAdapter", ex);
@@ -406,6 +802,7 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
             }
             reactorWsdlDefinitionHandlerAdapter.setTransformLocations(isTransformWsdlLocations());
             reactorWsdlDefinitionHandlerAdapter.setTransformSchemaLocations(isTransformSchemaLocations());
+            reactorWsdlDefinitionHandlerAdapter.setXmlParserFactories(getXmlParserFactories());
             reactorWsdlDefinitionHandlerAdapter.afterPropertiesSet();
         } catch (Exception ex) {
             throw new BeanInitializationException("Could not initialize WsdlDefinitionHandlerAdapter", ex);
@@ -422,6 +819,7 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
                 reactorXsdSchemaHandlerAdapter = new ReactorXsdSchemaHandlerAdapter();
             }
             reactorXsdSchemaHandlerAdapter.setTransformSchemaLocations(isTransformSchemaLocations());
+            reactorXsdSchemaHandlerAdapter.setXmlParserFactories(getXmlParserFactories());
             reactorXsdSchemaHandlerAdapter.afterPropertiesSet();
         } catch (Exception ex) {
             throw new BeanInitializationException("Could not initialize XsdSchemaHandlerAdapter", ex);
@@ -441,6 +839,22 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
                 logger.debug("No MessageDispatcher found in servlet '" + getBeanName() + "': using default");
             }
         }
+        if (isPrecompileEndpoints() && messageReceiver instanceof MessageDispatcher) {
+            precompileEndpointAdapters((MessageDispatcher) messageReceiver, context);
+        }
+    }
+
+    private void precompileEndpointAdapters(MessageDispatcher messageDispatcher, ApplicationContext context) {
+        List<EndpointAdapter> endpointAdapters = new ArrayList<>(messageDispatcher.getEndpointAdapters());
+        for (int i = 0; i < endpointAdapters.size(); i++) {
+            if (endpointAdapters.get(i) instanceof DefaultMethodEndpointAdapter) {
+                PrecompiledMethodEndpointAdapter precompiledAdapter = new PrecompiledMethodEndpointAdapter(
+                        (DefaultMethodEndpointAdapter) endpointAdapters.get(i));
+                precompiledAdapter.precompile(context);
+                endpointAdapters.set(i, precompiledAdapter);
+            }
+        }
+        messageDispatcher.setEndpointAdapters(endpointAdapters);
     }
 
     private void initWsdlDefinitions(ApplicationContext context) {
@@ -465,6 +879,72 @@ public class ReactorMessageDispatcher implements ApplicationContextAware {
                 logger.debug("Published [" + schema + "] as " + beanName + XSD_SUFFIX_NAME);
             }
         }
+        reactorWsdlDefinitionHandlerAdapter.setXsdSchemas(xsdSchemas);
+    }
+
+    private void initDefinitionChangeTracker() {
+        if (!isWatchDefinitions()) {
+            return;
+        }
+        definitionChangeTracker = new DefinitionChangeTracker();
+        definitionChangeTracker.addListener(this::reloadDefinition);
+        reactorWsdlDefinitionHandlerAdapter.setDefinitionChangeTracker(definitionChangeTracker);
+        reactorXsdSchemaHandlerAdapter.setDefinitionChangeTracker(definitionChangeTracker);
+        try {
+            for (WsdlDefinition definition : wsdlDefinitions.values()) {
+                definitionChangeTracker.register(definition, definition.getSource());
+            }
+            for (XsdSchema schema : xsdSchemas.values()) {
+                definitionChangeTracker.register(schema, schema.getSource());
+            }
+        } catch (Exception ex) {
+            throw new BeanInitializationException("Could not initialize DefinitionChangeTracker", ex);
+        }
+    }
+
+    private void initRenderedFileCache() {
+        if (!isServeDefinitionsFromFiles()) {
+            return;
+        }
+        try {
+            renderedFileCache = new RenderedFileCache();
+            reactorWsdlDefinitionHandlerAdapter.setRenderedFileCache(renderedFileCache);
+            reactorXsdSchemaHandlerAdapter.setRenderedFileCache(renderedFileCache);
+            for (WsdlDefinition definition : wsdlDefinitions.values()) {
+                reactorWsdlDefinitionHandlerAdapter.prepareRenderedFile(definition);
+            }
+            for (XsdSchema schema : xsdSchemas.values()) {
+                reactorXsdSchemaHandlerAdapter.prepareRenderedFile(schema);
+            }
+        } catch (Exception ex) {
+            throw new BeanInitializationException("Could not initialize RenderedFileCache", ex);
+        }
+    }
+
+    private void initSoapProxy() {
+        if (soapProxy != null && soapProxy.getXmlParserFactories() == null) {
+            soapProxy.setXmlParserFactories(getXmlParserFactories());
+        }
+    }
+
+    private void reloadDefinition(Object definition) {
+        if (definition instanceof InitializingBean) {
+            try {
+                ((InitializingBean) definition).afterPropertiesSet();
+            } catch (Exception ex) {
+                logger.warn("Could not reload [" + definition + "]", ex);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (definitionChangeTracker != null) {
+            definitionChangeTracker.destroy();
+        }
+        if (renderedFileCache != null) {
+            renderedFileCache.destroy();
+        }
     }
 
     @Override
@@ -1,17 +1,48 @@
 package com.shanhy.spring.ws.reactor;
 
+import com.shanhy.spring.ws.reactor.SoapFaultCatalog.TransportFault;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.ws.InvalidXmlException;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.TransportConstants;
 import org.springframework.ws.transport.WebServiceMessageReceiver;
 import org.springframework.ws.transport.http.HttpTransportConstants;
 import org.springframework.ws.transport.support.WebServiceMessageReceiverObjectSupport;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
+import javax.xml.namespace.QName;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 重写 WebServiceMessageReceiverHandlerAdapter
@@ -22,6 +53,193 @@ import java.io.OutputStream;
 public class ReactorWebServiceMessageReceiverHandlerAdapter extends WebServiceMessageReceiverObjectSupport
         implements ReactorHandlerAdapter {
 
+    private static final String AALTO_ASYNC_READER_CLASS_NAME = "com.fasterxml.aalto.AsyncXMLStreamReader";
+
+    private static final String FAST_INFOSET_PARSER_CLASS_NAME = "com.sun.xml.fastinfoset.sax.SAXDocumentParser";
+
+    private ResponseSizeEstimator responseSizeEstimator = new ResponseSizeEstimator();
+
+    private SoapFaultCatalog soapFaultCatalog = new SoapFaultCatalog();
+
+    private Scheduler connectionScheduler;
+
+    private PriorityDispatchExecutor priorityDispatchExecutor;
+
+    private PriorityClassifier priorityClassifier = new PriorityClassifier();
+
+    private IdempotencyStore idempotencyStore;
+
+    private PayloadCaptureStore payloadCaptureStore;
+
+    private boolean incrementalParsing = false;
+
+    private MemoryBudget memoryBudget;
+
+    private boolean fastInfoset = false;
+
+    private DiskSpool diskSpool;
+
+    private EventLoopWatchdog eventLoopWatchdog;
+
+    private List<ReactiveEndpointInterceptor> reactiveInterceptors = Collections.emptyList();
+
+    private XmlParserFactories xmlParserFactories = XmlParserFactories.getShared();
+
+    private String idempotencyHeaderName;
+
+    /**
+     * Returns the {@link ResponseSizeEstimator} used to size response buffers.
+     */
+    public ResponseSizeEstimator getResponseSizeEstimator() {
+        return responseSizeEstimator;
+    }
+
+    /**
+     * Sets the {@link ResponseSizeEstimator} used to size response buffers per operation.
+     */
+    public void setResponseSizeEstimator(ResponseSizeEstimator responseSizeEstimator) {
+        this.responseSizeEstimator = responseSizeEstimator;
+    }
+
+    /**
+     * Returns the {@link SoapFaultCatalog} used to write transport-level faults.
+     */
+    public SoapFaultCatalog getSoapFaultCatalog() {
+        return soapFaultCatalog;
+    }
+
+    /**
+     * Sets the {@link SoapFaultCatalog} used to write transport-level faults, such as invalid XML or an unsupported
+     * method. Set to {@code null} to respond with a status code and an empty body only.
+     */
+    public void setSoapFaultCatalog(SoapFaultCatalog soapFaultCatalog) {
+        this.soapFaultCatalog = soapFaultCatalog;
+    }
+
+    /**
+     * Sets how the blocking {@code handleConnection} step is executed. Defaults to {@link DispatchMode#EVENT_LOOP}.
+     */
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        this.connectionScheduler = dispatchMode.createScheduler();
+    }
+
+    /**
+     * Sets the {@link Scheduler} on which the blocking {@code handleConnection} step is executed, or {@code null} to
+     * execute it on the thread that completed the request body.
+     */
+    public void setConnectionScheduler(Scheduler connectionScheduler) {
+        this.connectionScheduler = connectionScheduler;
+    }
+
+    /**
+     * Sets the {@link PriorityDispatchExecutor} on which the blocking {@code handleConnection} step is executed, with
+     * the priority assigned by the {@link PriorityClassifier}. Takes precedence over the connection scheduler.
+     */
+    public void setPriorityDispatchExecutor(PriorityDispatchExecutor priorityDispatchExecutor) {
+        this.priorityDispatchExecutor = priorityDispatchExecutor;
+    }
+
+    /**
+     * Sets the {@link PriorityClassifier} used with the {@link PriorityDispatchExecutor}.
+     */
+    public void setPriorityClassifier(PriorityClassifier priorityClassifier) {
+        this.priorityClassifier = priorityClassifier;
+    }
+
+    /**
+     * Sets the {@link IdempotencyStore} used to answer retried requests with the response of the original one, or
+     * {@code null} (the default) to dispatch every request. Requests carrying a key are fingerprinted with a digest of
+     * their body, computed on the dispatch scheduler unless the {@link DispatchMode#EVENT_LOOP} mode is used.
+     */
+    public void setIdempotencyStore(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    /**
+     * Sets the name of the HTTP header holding the idempotency key. If not set, or the header is absent, the
+     * WS-Addressing {@code MessageID} of the envelope is used.
+     */
+    public void setIdempotencyHeaderName(String idempotencyHeaderName) {
+        this.idempotencyHeaderName = idempotencyHeaderName;
+    }
+
+    /**
+     * Sets the {@link PayloadCaptureStore} to which the bodies of selected requests and their responses are captured,
+     * or {@code null} (the default) to capture nothing.
+     */
+    public void setPayloadCaptureStore(PayloadCaptureStore payloadCaptureStore) {
+        this.payloadCaptureStore = payloadCaptureStore;
+    }
+
+    /**
+     * Sets whether each request buffer is fed to an asynchronous XML tokenizer as it arrives, so that malformed
+     * requests are rejected before the rest of the body is read, and the envelope need not be sniffed afterwards.
+     * Requires {@code com.fasterxml:aalto-xml}; ignored with a warning when it is absent. Defaults to {@code false}.
+     */
+    public void setIncrementalParsing(boolean incrementalParsing) {
+        if (incrementalParsing && !ClassUtils.isPresent(AALTO_ASYNC_READER_CLASS_NAME, getClass().getClassLoader())) {
+            logger.warn("Aalto is not on the classpath, incremental parsing is disabled");
+            incrementalParsing = false;
+        }
+        this.incrementalParsing = incrementalParsing;
+    }
+
+    /**
+     * Sets the {@link MemoryBudget} request bodies reserve from as their buffers arrive, or {@code null} (the default)
+     * for none.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets the {@link DiskSpool} large request bodies are written to, or {@code null} (the default) to keep every
+     * body in memory. Bodies that may be spooled are collected on {@link Schedulers#boundedElastic()}, since the file
+     * writes block.
+     */
+    public void setDiskSpool(DiskSpool diskSpool) {
+        this.diskSpool = diskSpool;
+    }
+
+    /**
+     * Sets the {@link EventLoopWatchdog} watching endpoint invocations, or {@code null} (the default) for none.
+     */
+    public void setEventLoopWatchdog(EventLoopWatchdog eventLoopWatchdog) {
+        this.eventLoopWatchdog = eventLoopWatchdog;
+    }
+
+    /**
+     * Sets the {@link ReactiveEndpointInterceptor}s run around every SOAP request. Defaults to none.
+     */
+    public void setReactiveInterceptors(List<ReactiveEndpointInterceptor> reactiveInterceptors) {
+        Assert.notNull(reactiveInterceptors, "'reactiveInterceptors' must not be null");
+        this.reactiveInterceptors = reactiveInterceptors;
+    }
+
+    /**
+     * Sets whether Fast Infoset is supported: {@code application/fastinfoset} and {@code application/soap+fastinfoset}
+     * requests are accepted, and responses are sent as Fast Infoset when the {@code Accept} header allows it. A
+     * {@link SaajSoapMessageFactory} backed by the SAAJ reference implementation reads and writes Fast Infoset
+     * directly; for other message factories the body is transcoded from and to textual XML. Requires
+     * {@code com.sun.xml.fastinfoset:FastInfoset}; ignored with a warning when it is absent. Defaults to
+     * {@code false}.
+     */
+    public void setFastInfoset(boolean fastInfoset) {
+        if (fastInfoset && !ClassUtils.isPresent(FAST_INFOSET_PARSER_CLASS_NAME, getClass().getClassLoader())) {
+            logger.warn("FastInfoset is not on the classpath, Fast Infoset support is disabled");
+            fastInfoset = false;
+        }
+        this.fastInfoset = fastInfoset;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} from which transformers are leased and with which envelopes are sniffed.
+     * Defaults to the shared registry.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
     @Override
     public long getLastModified(ServerHttpRequest request, Object handler) {
         return -1L;
@@ -32,30 +250,59 @@ public class ReactorWebServiceMessageReceiverHandlerAdapter extends WebServiceMe
                              ServerHttpResponse response,
                              Object handler) throws Exception {
         if (HttpTransportConstants.METHOD_POST.equals(request.getMethodValue())) {
-            return request.getBody().collect(ServerHttpConnection.InputStreamCollector::new,
-                            (t, dataBuffer) -> t.collectInputStream(dataBuffer.asInputStream()))
-                    .flatMap(inputStreamCollector -> {
-                        try {
-                            DataBuffer dataBuffer = response.bufferFactory().allocateBuffer();
-                            InputStream requestInputStream = inputStreamCollector.getInputStream();
-                            OutputStream responseOutputStream = dataBuffer.asOutputStream();
-
-                            ServerHttpConnection connection = new ServerHttpConnection(request, response,
-                                    requestInputStream, responseOutputStream);
-                            handleConnection(connection, (WebServiceMessageReceiver) handler);
-
-                            return response.writeWith(Mono.just(dataBuffer));
-                        } catch (InvalidXmlException ex) {
-                            handleInvalidXmlException(request, response, handler, ex);
-                            return Mono.empty();
-                        } catch (Exception e) {
-                            return Mono.error(new RuntimeException(e));
-                        }
-                    });
+            if (memoryBudget == null) {
+                return handlePost(request, response, handler, request.getBody(), null);
+            }
+            if (memoryBudget.exceedsMaxRequestSize(request.getHeaders().getContentLength())) {
+                response.setStatusCode(TransportFault.PAYLOAD_TOO_LARGE.getStatus());
+                return writeTransportFault(request, response, TransportFault.PAYLOAD_TOO_LARGE);
+            }
+            MemoryBudget.Reservation reservation = memoryBudget.newReservation();
+            // a prefetch of 1 stops reading the body while a buffer waits for the budget
+            Flux<DataBuffer> body = request.getBody()
+                    .concatMap(reservation::reserve, 1)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            return handlePost(request, response, handler, body, reservation)
+                    .doFinally(signal -> reservation.close());
         } else {
             handleNonPostMethod(request, response, handler);
-            return Mono.empty();
+            return writeTransportFault(request, response);
+        }
+    }
+
+    private Mono<Void> handlePost(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                  Flux<DataBuffer> body, MemoryBudget.Reservation reservation) {
+        // a Fast Infoset body is binary, the scanner reads textual XML only
+        IncrementalEnvelopeScanner scanner = incrementalParsing && !isFastInfosetRequest(request) ?
+                new IncrementalEnvelopeScanner() : null;
+        long contentLength = request.getHeaders().getContentLength();
+        if (diskSpool != null && (contentLength < 0 || diskSpool.exceedsThreshold(contentLength))) {
+            // with a budget, the next buffer is only reserved once the previous one was collected, so nothing is
+            // reserved for buffers that follow the body to disk
+            body = body.publishOn(Schedulers.boundedElastic(), reservation != null ? 1 : Queues.SMALL_BUFFER_SIZE)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
         }
+        return body.collect(
+                        () -> new ServerHttpConnection.InputStreamCollector(scanner, diskSpool, reservation,
+                                xmlParserFactories),
+                        ServerHttpConnection.InputStreamCollector::collect)
+                .doOnDiscard(ServerHttpConnection.InputStreamCollector.class,
+                        ServerHttpConnection.InputStreamCollector::release)
+                .flatMap(inputStreamCollector -> Mono.defer(() -> {
+                            inputStreamCollector.finish();
+                            return handleBody(request, response, handler, inputStreamCollector);
+                        })
+                        .doFinally(signal -> inputStreamCollector.release()))
+                .onErrorResume(InvalidXmlException.class, ex -> {
+                    // raised by incremental parsing, possibly before the body was complete
+                    handleInvalidXmlException(request, response, handler, ex);
+                    return writeTransportFault(request, response);
+                })
+                .onErrorResume(MemoryBudget.BudgetExceededException.class, ex -> {
+                    // raised by the memory budget or the disk spool
+                    response.setStatusCode(ex.getFault().getStatus());
+                    return writeTransportFault(request, response, ex.getFault());
+                });
     }
 
     @Override
@@ -63,6 +310,359 @@ public class ReactorWebServiceMessageReceiverHandlerAdapter extends WebServiceMe
         return handler instanceof WebServiceMessageReceiver;
     }
 
+    private Mono<Void> handleBody(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                  ServerHttpConnection.InputStreamCollector inputStreamCollector) {
+        if (reactiveInterceptors.isEmpty()) {
+            return dispatchBody(request, response, handler, inputStreamCollector);
+        }
+        return Flux.fromIterable(reactiveInterceptors)
+                .concatMap(interceptor -> interceptor.preHandle(request, response, inputStreamCollector::getEnvelope)
+                        .defaultIfEmpty(Boolean.TRUE))
+                .all(Boolean::booleanValue)
+                .flatMap(proceed -> {
+                    if (proceed) {
+                        return dispatchBody(request, response, handler, inputStreamCollector);
+                    }
+                    if (response.getRawStatusCode() == null) {
+                        response.setStatusCode(HttpStatus.FORBIDDEN);
+                    }
+                    return response.setComplete();
+                });
+    }
+
+    private Mono<Void> dispatchBody(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                    ServerHttpConnection.InputStreamCollector inputStreamCollector) {
+        String idempotencyKey = idempotencyStore != null ?
+                getIdempotencyKey(request, inputStreamCollector::getEnvelope) : null;
+        // the fingerprint digests the whole body, so the claim runs where the dispatch does, off the event loop
+        Mono<Void> dispatch = idempotencyKey != null ?
+                Mono.defer(() -> claimAndDispatch(request, response, handler, inputStreamCollector, idempotencyKey)) :
+                deferDispatch(request, response, handler, inputStreamCollector, null);
+        if (priorityDispatchExecutor != null) {
+            int priority = priorityClassifier.classify(request, inputStreamCollector::getEnvelope);
+            dispatch = dispatch.subscribeOn(priorityDispatchExecutor.getScheduler(priority));
+        } else if (connectionScheduler != null) {
+            dispatch = dispatch.subscribeOn(connectionScheduler);
+        }
+        return dispatch;
+    }
+
+    private Mono<Void> claimAndDispatch(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                        ServerHttpConnection.InputStreamCollector inputStreamCollector,
+                                        String idempotencyKey) {
+        if (!inputStreamCollector.retain()) {
+            // cancelled before the scheduled claim started
+            return Mono.empty();
+        }
+        String fingerprint;
+        try {
+            fingerprint = digest(inputStreamCollector.getInputStream());
+        } finally {
+            inputStreamCollector.release();
+        }
+        Mono<IdempotencyStore.StoredResponse> stored = idempotencyStore.claim(idempotencyKey, fingerprint);
+        if (stored != null) {
+            return stored.flatMap(storedResponse -> storedResponse.writeTo(response))
+                    // the original request was released without a response, try to become the owner
+                    .switchIfEmpty(Mono.defer(() -> response.isCommitted() ? Mono.empty() :
+                            dispatchBody(request, response, handler, inputStreamCollector)))
+                    .onErrorResume(IdempotencyStore.FingerprintMismatchException.class, ex -> {
+                        response.setStatusCode(TransportFault.IDEMPOTENCY_KEY_REUSED.getStatus());
+                        return writeTransportFault(request, response, TransportFault.IDEMPOTENCY_KEY_REUSED);
+                    });
+        }
+        return deferDispatch(request, response, handler, inputStreamCollector, idempotencyKey)
+                .doFinally(signal -> idempotencyStore.release(idempotencyKey));
+    }
+
+    private Mono<Void> deferDispatch(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                     ServerHttpConnection.InputStreamCollector inputStreamCollector,
+                                     String idempotencyKey) {
+        return Mono.deferContextual(context -> dispatch(request, response, handler, inputStreamCollector,
+                context.getOrDefault(SoapRequestInfo.class, null), idempotencyKey));
+    }
+
+    private Mono<Void> dispatch(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                ServerHttpConnection.InputStreamCollector inputStreamCollector,
+                                SoapRequestInfo requestInfo, String idempotencyKey) {
+        if (!inputStreamCollector.retain()) {
+            // cancelled before the scheduled dispatch started
+            return Mono.empty();
+        }
+        DataBuffer dataBuffer = null;
+        DataBuffer decodedRequest = null;
+        EventLoopWatchdog.Section section = null;
+        try {
+            String operationKey = getOperationKey(request);
+            if (eventLoopWatchdog != null) {
+                section = eventLoopWatchdog.enter(operationKey);
+            }
+            if (requestInfo != null) {
+                requestInfo.setOperation(operationKey);
+                requestInfo.setBytesIn(inputStreamCollector.getSize());
+            }
+            ServerHttpRequest connectionRequest = request;
+            InputStream requestInputStream = inputStreamCollector.getInputStream();
+            // the SAAJ reference implementation parses Fast Infoset itself, other factories get textual XML
+            if (fastInfoset && isFastInfosetRequest(request) &&
+                    !(getMessageFactory() instanceof SaajSoapMessageFactory)) {
+                MediaType contentType = request.getHeaders().getContentType();
+                decodedRequest = decodeFastInfoset(requestInputStream, inputStreamCollector.getSize(),
+                        response.bufferFactory());
+                requestInputStream = decodedRequest.asInputStream();
+                connectionRequest = request.mutate()
+                        .headers(headers -> headers.setContentType(FastInfosetCodec.toXmlContentType(contentType)))
+                        .build();
+            }
+            Object sizeKey = getResponseSizeKey(request, inputStreamCollector.getSniffedEnvelope());
+            int initialCapacity = responseSizeEstimator.estimate(sizeKey);
+            dataBuffer = response.bufferFactory().allocateBuffer(initialCapacity);
+            OutputStream responseOutputStream = dataBuffer.asOutputStream();
+
+            ServerHttpConnection connection = new ServerHttpConnection(connectionRequest, response,
+                    requestInputStream, responseOutputStream);
+            boolean fastInfosetAccepted = fastInfoset && FastInfosetCodec.isAccepted(request.getHeaders());
+            connection.setFastInfosetAccepted(fastInfosetAccepted);
+            handleConnection(connection, (WebServiceMessageReceiver) handler);
+            if (requestInfo != null) {
+                requestInfo.setFaultCode(connection.getFaultCode());
+            }
+
+            responseSizeEstimator.record(sizeKey, initialCapacity, dataBuffer.readableByteCount());
+            StreamingResponse streamingResponse = connection.getStreamingResponse();
+            if (streamingResponse != null) {
+                // neither replayable nor capturable, the body is produced while it is written
+                DataBuffer envelope = dataBuffer;
+                dataBuffer = null;
+                return writeResponse(request, response, inputStreamCollector, envelope,
+                        buffer -> response.writeWith(streamingResponse.toBody(buffer, response.bufferFactory())));
+            }
+            if (fastInfosetAccepted && dataBuffer.readableByteCount() > 0) {
+                if (!FastInfosetCodec.isFastInfosetDocument(dataBuffer)) {
+                    // the message could not serialize itself to Fast Infoset
+                    DataBuffer xmlResponse = dataBuffer;
+                    dataBuffer = encodeFastInfoset(xmlResponse, response.bufferFactory());
+                    DataBufferUtils.release(xmlResponse);
+                }
+                response.getHeaders().setContentType(
+                        FastInfosetCodec.toFastInfosetContentType(response.getHeaders().getContentType()));
+            }
+            int size = dataBuffer.readableByteCount();
+            response.getHeaders().setContentLength(size);
+            int status = response.getRawStatusCode() != null ? response.getRawStatusCode() : HttpStatus.OK.value();
+            // failures are not replayed, the claim is released and a retry is dispatched again
+            if (idempotencyKey != null && HttpStatus.Series.resolve(status) == HttpStatus.Series.SUCCESSFUL &&
+                    connection.getFaultCode() == null) {
+                byte[] body = new byte[size];
+                dataBuffer.slice(dataBuffer.readPosition(), size).read(body);
+                idempotencyStore.complete(idempotencyKey,
+                        new IdempotencyStore.StoredResponse(status, response.getHeaders(), body));
+            }
+            if (payloadCaptureStore != null && payloadCaptureStore.shouldCapture(request)) {
+                // copied, so that a capture pins neither the whole buffers nor memory the budget no longer counts
+                int maxBodySize = payloadCaptureStore.getMaxBodySize();
+                DataBuffer requestPrefix = inputStreamCollector.copyPrefix(maxBodySize, response.bufferFactory());
+                DataBuffer responsePrefix = response.bufferFactory().allocateBuffer(Math.min(size, maxBodySize));
+                responsePrefix.write(dataBuffer.slice(dataBuffer.readPosition(), Math.min(size, maxBodySize)));
+                payloadCaptureStore.capture(operationKey, status, requestPrefix, inputStreamCollector.getSize(),
+                        responsePrefix, size);
+            }
+            return writeResponse(request, response, inputStreamCollector, dataBuffer,
+                    buffer -> response.writeWith(Mono.just(buffer)));
+        } catch (InvalidXmlException ex) {
+            DataBufferUtils.release(dataBuffer);
+            handleInvalidXmlException(request, response, handler, ex);
+            return writeTransportFault(request, response);
+        } catch (Exception e) {
+            DataBufferUtils.release(dataBuffer);
+            return Mono.error(new RuntimeException(e));
+        } finally {
+            if (section != null) {
+                section.close();
+            }
+            DataBufferUtils.release(decodedRequest);
+            inputStreamCollector.release();
+        }
+    }
+
+    private Mono<Void> writeResponse(ServerHttpRequest request, ServerHttpResponse response,
+                                     ServerHttpConnection.InputStreamCollector inputStreamCollector,
+                                     DataBuffer dataBuffer, Function<DataBuffer, Mono<Void>> write) {
+        if (reactiveInterceptors.isEmpty()) {
+            return write.apply(dataBuffer);
+        }
+        List<ReactiveEndpointInterceptor> reversed = new ArrayList<>(reactiveInterceptors);
+        Collections.reverse(reversed);
+        AtomicBoolean written = new AtomicBoolean();
+        return Flux.fromIterable(reversed)
+                .concatMap(interceptor -> interceptor.postHandle(request, response, inputStreamCollector::getEnvelope))
+                .then(Mono.defer(() -> {
+                    written.set(true);
+                    return write.apply(dataBuffer);
+                }))
+                .doFinally(signal -> {
+                    // failed or cancelled while intercepting
+                    if (!written.get()) {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                });
+    }
+
+    private static boolean isFastInfosetRequest(ServerHttpRequest request) {
+        try {
+            return FastInfosetCodec.isFastInfoset(request.getHeaders().getContentType());
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private DataBuffer decodeFastInfoset(InputStream requestInputStream, long encodedSize,
+                                         DataBufferFactory bufferFactory) {
+        // textual XML is typically two to four times the size of its Fast Infoset encoding
+        DataBuffer decoded = bufferFactory.allocateBuffer((int) Math.min(encodedSize * 3, Integer.MAX_VALUE));
+        try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+            FastInfosetCodec.decode(requestInputStream, decoded.asOutputStream(), transformerLease.get());
+            return decoded;
+        } catch (TransformerException | RuntimeException ex) {
+            DataBufferUtils.release(decoded);
+            throw new InvalidXmlException("Could not decode Fast Infoset request", ex);
+        }
+    }
+
+    private DataBuffer encodeFastInfoset(DataBuffer xmlResponse, DataBufferFactory bufferFactory)
+            throws TransformerException {
+        DataBuffer encoded = bufferFactory.allocateBuffer(xmlResponse.readableByteCount());
+        try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+            FastInfosetCodec.encode(xmlResponse.slice(xmlResponse.readPosition(), xmlResponse.readableByteCount())
+                    .asInputStream(), encoded.asOutputStream(), transformerLease.get());
+            return encoded;
+        } catch (TransformerException | RuntimeException ex) {
+            DataBufferUtils.release(encoded);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the key under which response sizes of the given request are tracked.
+     *
+     * <p>Default implementation uses the payload root element, which is what endpoints are resolved by, if the envelope
+     * has already been sniffed, by incremental parsing, an interceptor, the idempotency key or the priority classifier.
+     * Otherwise, and if the envelope has no payload, it uses the {@linkplain #getOperationKey operation key}, so that
+     * the body is never parsed just to pick a key. The number of keys is bounded by the {@link ResponseSizeEstimator},
+     * so arbitrary client values only evict each other.
+     *
+     * @param request current HTTP request
+     * @param envelope the values sniffed from the envelope, or {@code null} if it has not been sniffed
+     * @return the response size key
+     */
+    protected Object getResponseSizeKey(ServerHttpRequest request, SoapEnvelopeSniffer.Result envelope) {
+        QName payloadRoot = envelope != null ? envelope.getPayloadRoot() : null;
+        return payloadRoot != null ? payloadRoot : getOperationKey(request);
+    }
+
+    /**
+     * Returns the key that identifies the operation of the given request in logs, request infos and idempotency keys.
+     *
+     * <p>Default implementation uses the {@code SOAPAction} header, or the request path if there is none.
+     *
+     * @param request current HTTP request
+     * @return the operation key
+     */
+    protected String getOperationKey(ServerHttpRequest request) {
+        String soapAction = request.getHeaders().getFirst(TransportConstants.HEADER_SOAP_ACTION);
+        return StringUtils.hasLength(soapAction) ? soapAction : request.getURI().getPath();
+    }
+
+    /**
+     * Returns the idempotency key of the given request, or {@code null} if it has none.
+     *
+     * <p>Default implementation uses the configured {@linkplain #setIdempotencyHeaderName header}, or else the
+     * WS-Addressing {@code MessageID}, qualified by the operation key and the {@linkplain #getCallerIdentity caller}.
+     * Requests whose caller is unknown are not deduplicated. A replay is also only served to a request with the same
+     * body, so credentials carried in the envelope, such as WS-Security tokens, must match as well.
+     *
+     * @param request current HTTP request
+     * @param envelope supplies the values sniffed from the envelope
+     * @return the idempotency key, or {@code null}
+     */
+    protected String getIdempotencyKey(ServerHttpRequest request, Supplier<SoapEnvelopeSniffer.Result> envelope) {
+        String key = idempotencyHeaderName != null ? request.getHeaders().getFirst(idempotencyHeaderName) : null;
+        if (!StringUtils.hasLength(key)) {
+            key = envelope.get().getMessageId();
+        }
+        if (!StringUtils.hasLength(key)) {
+            return null;
+        }
+        String caller = getCallerIdentity(request);
+        return caller != null ? getOperationKey(request) + ' ' + caller + ' ' + key : null;
+    }
+
+    /**
+     * Returns the identity of the caller of the given request, to which its stored response is bound, or
+     * {@code null} if it is unknown.
+     *
+     * <p>Default implementation uses the client address, and a digest of the {@code Authorization} header if there is
+     * one. Can be overridden in subclasses, for example to use an authenticated principal.
+     *
+     * @param request current HTTP request
+     * @return the caller identity, or {@code null}
+     */
+    protected String getCallerIdentity(ServerHttpRequest request) {
+        String address = RateLimiter.clientAddress().apply(request);
+        if (address == null) {
+            return null;
+        }
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return authorization != null ?
+                address + ' ' + digest(new ByteArrayInputStream(authorization.getBytes(StandardCharsets.UTF_8))) :
+                address;
+    }
+
+    private static String digest(InputStream inputStream) {
+        try (InputStream in = inputStream) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+            return Base64.getEncoder().encodeToString(messageDigest.digest());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes the pre-serialized body of the given fault, keeping the status set by the template methods.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param fault the transport fault
+     * @return completion of the write, or an empty response if no {@link SoapFaultCatalog} is set
+     */
+    protected Mono<Void> writeTransportFault(ServerHttpRequest request, ServerHttpResponse response,
+                                             TransportFault fault) {
+        if (soapFaultCatalog == null) {
+            return Mono.empty();
+        }
+        return soapFaultCatalog.writeBody(request, response, fault, null);
+    }
+
+    /**
+     * Writes the pre-serialized fault matching the status set by a template method, which may have been overridden to
+     * set another status. The response is completed without a body if there is no fault for that status.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @return completion of the response
+     */
+    private Mono<Void> writeTransportFault(ServerHttpRequest request, ServerHttpResponse response) {
+        TransportFault fault = TransportFault.forStatus(response.getRawStatusCode());
+        return fault != null ? writeTransportFault(request, response, fault) : response.setComplete();
+    }
+
     /**
      * Template method that is invoked when the request method is not {@code POST}.
      *
@@ -2,6 +2,7 @@ package com.shanhy.spring.ws.reactor;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -10,6 +11,7 @@ import org.springframework.ws.transport.http.HttpTransportConstants;
 import org.springframework.ws.wsdl.WsdlDefinition;
 import org.springframework.xml.xpath.XPathExpression;
 import org.springframework.xml.xpath.XPathExpressionFactory;
+import org.springframework.xml.xsd.XsdSchema;
 import org.w3c.dom.Document;
 import reactor.core.publisher.Mono;
 
@@ -18,8 +20,16 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Reactor 模式的 WsdlDefinitionHandlerAdapter 重写
@@ -39,6 +49,11 @@ public class ReactorWsdlDefinitionHandlerAdapter extends ReactorLocationTransfor
      */
     public static final String DEFAULT_SCHEMA_LOCATION_EXPRESSION = "//@schemaLocation";
 
+    /**
+     * Default name of the query parameter that requests the WSDL with all published schemas inlined.
+     */
+    public static final String DEFAULT_BUNDLE_PARAMETER_NAME = "bundle";
+
     private static final String CONTENT_TYPE = "text/xml";
 
     private Map<String, String> expressionNamespaces = new HashMap<String, String>();
@@ -55,6 +70,27 @@ public class ReactorWsdlDefinitionHandlerAdapter extends ReactorLocationTransfor
 
     private boolean transformSchemaLocations = false;
 
+    private ResponseSizeEstimator responseSizeEstimator = new ResponseSizeEstimator();
+
+    private DefinitionChangeTracker definitionChangeTracker;
+
+    private RenderedFileCache renderedFileCache;
+
+    private XmlParserFactories xmlParserFactories = XmlParserFactories.getShared();
+
+    private String bundleParameterName = DEFAULT_BUNDLE_PARAMETER_NAME;
+
+    private Map<String, XsdSchema> xsdSchemas = Collections.emptyMap();
+
+    private final Map<WsdlDefinition, Bundle> bundles = new ConcurrentHashMap<>();
+
+    private final Map<Object, String> eTags = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every definition change, so that state derived from a previous version is not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * Sets the XPath expression used for extracting the {@code location} attributes from the WSDL 1.1 definition.
      *
@@ -89,44 +125,277 @@ public class ReactorWsdlDefinitionHandlerAdapter extends ReactorLocationTransfor
         this.transformSchemaLocations = transformSchemaLocations;
     }
 
+    /**
+     * Sets the name of the query parameter that requests the WSDL with all imported and included published schemas
+     * inlined, for instance {@code /countries.wsdl?bundle}. Set to {@code null} to disable bundling. Defaults to
+     * {@link #DEFAULT_BUNDLE_PARAMETER_NAME}.
+     */
+    public void setBundleParameterName(String bundleParameterName) {
+        this.bundleParameterName = bundleParameterName;
+    }
+
+    /**
+     * Sets the published schemas, keyed by bean name, that may be inlined into a bundled WSDL.
+     */
+    public void setXsdSchemas(Map<String, XsdSchema> xsdSchemas) {
+        this.xsdSchemas = xsdSchemas;
+    }
+
+    /**
+     * Returns the {@link ResponseSizeEstimator} used to size response buffers.
+     */
+    public ResponseSizeEstimator getResponseSizeEstimator() {
+        return responseSizeEstimator;
+    }
+
+    /**
+     * Sets the {@link ResponseSizeEstimator} used to size response buffers per definition.
+     */
+    public void setResponseSizeEstimator(ResponseSizeEstimator responseSizeEstimator) {
+        this.responseSizeEstimator = responseSizeEstimator;
+    }
+
+    /**
+     * Sets the {@link RenderedFileCache} the WSDL is rendered to once and served from, bypassing the heap. Only used
+     * when no location transformation is enabled, as the rendered bytes are the same for every request then.
+     */
+    public void setRenderedFileCache(RenderedFileCache renderedFileCache) {
+        this.renderedFileCache = renderedFileCache;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} from which transformers are leased. Defaults to the shared registry.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
+    /**
+     * Renders the given definition into the {@link RenderedFileCache}, if one is set and it would be served from there.
+     *
+     * @param handler the WSDL definition
+     * @throws Exception in case of errors
+     */
+    public void prepareRenderedFile(Object handler) throws Exception {
+        if (renderedFileCache != null && !transformLocations && !transformSchemaLocations) {
+            renderedFileCache.prepare(handler, outputStream -> render(handler, outputStream));
+        }
+    }
+
+    /**
+     * Sets the {@link DefinitionChangeTracker} providing last modified dates, and notifying of changes.
+     */
+    public void setDefinitionChangeTracker(DefinitionChangeTracker definitionChangeTracker) {
+        this.definitionChangeTracker = definitionChangeTracker;
+        definitionChangeTracker.addListener(this::definitionChanged);
+    }
+
+    /**
+     * Returns the last modified date of the given definition. For a bundle request, this is the latest of the
+     * definition and every schema inlined into it, or {@code -1} if any of them is unknown.
+     */
     @Override
     public long getLastModified(ServerHttpRequest request, Object handler) {
-        Source definitionSource = ((WsdlDefinition) handler).getSource();
-        return LastModifiedHelper.getLastModified(definitionSource);
+        WsdlDefinition definition = (WsdlDefinition) handler;
+        if (isBundleRequest(request)) {
+            try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+                return getBundle(definition, transformerLease.get()).lastModified;
+            } catch (Exception ex) {
+                // reported when the bundle is written
+                return -1;
+            }
+        }
+        return getLastModified(definition, definition::getSource);
+    }
+
+    /**
+     * Returns the tracked date if there is one, so that the source is only evaluated without a tracker.
+     */
+    private long getLastModified(Object definition, Supplier<Source> source) {
+        if (definitionChangeTracker != null) {
+            Long lastModified = definitionChangeTracker.getLastModified(definition);
+            if (lastModified != null) {
+                return lastModified;
+            }
+        }
+        return LastModifiedHelper.getLastModified(source.get());
+    }
+
+    private long getLastModified(WsdlDefinition definition, Collection<XsdSchema> inlinedSchemas) {
+        long lastModified = getLastModified(definition, definition::getSource);
+        for (XsdSchema schema : inlinedSchemas) {
+            if (lastModified < 0) {
+                break;
+            }
+            long schemaLastModified = getLastModified(schema, schema::getSource);
+            lastModified = schemaLastModified < 0 ? -1 : Math.max(lastModified, schemaLastModified);
+        }
+        return lastModified;
+    }
+
+    /**
+     * Returns the entity tag of the given definition, or of its bundle for a bundle request, a hash of the rendered
+     * content, or {@code null} if the content depends on the request.
+     *
+     * @param request current HTTP request
+     * @param handler the WSDL definition
+     * @return the quoted entity tag, or {@code null}
+     * @throws Exception in case of errors
+     */
+    public String getETag(ServerHttpRequest request, Object handler) throws Exception {
+        if (transformLocations || transformSchemaLocations) {
+            return null;
+        }
+        if (isBundleRequest(request)) {
+            try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+                return getBundle((WsdlDefinition) handler, transformerLease.get()).getETag(transformerLease.get());
+            }
+        }
+        String eTag = eTags.get(handler);
+        if (eTag == null) {
+            long renderedGeneration = generation.get();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            render(handler, outputStream);
+            eTag = LastModifiedHelper.createETag(outputStream.toByteArray());
+            eTags.put(handler, eTag);
+            if (generation.get() != renderedGeneration) {
+                // rendered from the previous version
+                eTags.remove(handler, eTag);
+            }
+        }
+        return eTag;
     }
 
     @Override
     public Mono<Void> handle(ServerHttpRequest request, ServerHttpResponse response, Object handler)
             throws Exception {
         if (HttpTransportConstants.METHOD_GET.equals(request.getMethodValue())) {
-            WsdlDefinition definition = (WsdlDefinition) handler;
+            if (renderedFileCache != null && !transformLocations && !transformSchemaLocations &&
+                    !isBundleRequest(request)) {
+                response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+                return renderedFileCache.write(handler, outputStream -> render(handler, outputStream), response);
+            }
+            try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+                return writeDefinition(request, response, (WsdlDefinition) handler, transformerLease.get());
+            }
+        } else {
+            response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+        }
+        return Mono.empty();
+    }
 
-            Transformer transformer = createTransformer();
-            Source definitionSource = definition.getSource();
+    private Mono<Void> writeDefinition(ServerHttpRequest request, ServerHttpResponse response,
+                                       WsdlDefinition definition, Transformer transformer) throws Exception {
+        Source definitionSource;
+        Object sizeKey = definition;
 
+        if (isBundleRequest(request)) {
+            Bundle bundle = getBundle(definition, transformer);
+            if (!transformLocations && !transformSchemaLocations) {
+                byte[] content = bundle.getContent(transformer);
+                response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+                response.getHeaders().setContentLength(content.length);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(content)));
+            }
+            Document definitionDocument;
+            synchronized (bundle.document) {
+                definitionDocument = (Document) bundle.document.cloneNode(true);
+            }
+            applyLocationTransformations(definitionDocument, request);
+            definitionSource = new DOMSource(definitionDocument);
+            sizeKey = new AbstractMap.SimpleImmutableEntry<>(definition, bundleParameterName);
+        } else {
+            definitionSource = definition.getSource();
             if (transformLocations || transformSchemaLocations) {
                 DOMResult domResult = new DOMResult();
                 transformer.transform(definitionSource, domResult);
                 Document definitionDocument = (Document) domResult.getNode();
-                if (transformLocations) {
-                    transformLocations(definitionDocument, request);
-                }
-                if (transformSchemaLocations) {
-                    transformSchemaLocations(definitionDocument, request);
-                }
+                applyLocationTransformations(definitionDocument, request);
                 definitionSource = new DOMSource(definitionDocument);
             }
-            response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+        }
+        response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
 
-            DataBuffer dataBuffer = response.bufferFactory().allocateBuffer();
+        int initialCapacity = responseSizeEstimator.estimate(sizeKey);
+        DataBuffer dataBuffer = response.bufferFactory().allocateBuffer(initialCapacity);
+        try {
             StreamResult responseResult = new StreamResult(dataBuffer.asOutputStream()); // reactor 方式
             transformer.transform(definitionSource, responseResult);
+        } catch (Exception ex) {
+            DataBufferUtils.release(dataBuffer);
+            throw ex;
+        }
 
-            return response.writeWith(Mono.just(dataBuffer));
-        } else {
-            response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+        int size = dataBuffer.readableByteCount();
+        responseSizeEstimator.record(sizeKey, initialCapacity, size);
+        response.getHeaders().setContentLength(size);
+
+        return response.writeWith(Mono.just(dataBuffer));
+    }
+
+    private void render(Object handler, OutputStream outputStream) throws Exception {
+        try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+            transformerLease.get().transform(((WsdlDefinition) handler).getSource(), new StreamResult(outputStream));
+        }
+    }
+
+    private void applyLocationTransformations(Document definitionDocument, ServerHttpRequest request)
+            throws Exception {
+        if (transformLocations) {
+            transformLocations(definitionDocument, request);
+        }
+        if (transformSchemaLocations) {
+            transformSchemaLocations(definitionDocument, request);
         }
-        return Mono.empty();
+    }
+
+    /**
+     * Indicates whether the given request asks for the WSDL with all published schemas inlined.
+     */
+    protected boolean isBundleRequest(ServerHttpRequest request) {
+        return bundleParameterName != null && request.getQueryParams().containsKey(bundleParameterName);
+    }
+
+    /**
+     * Returns the bundle of the given definition. With a {@link DefinitionChangeTracker}, the bundle is built again
+     * when the tracked date of the definition or one of its inlined schemas differs from when it was built; without
+     * one, definitions are not expected to change and the bundle is built once.
+     */
+    private Bundle getBundle(WsdlDefinition definition, Transformer transformer) throws Exception {
+        Bundle bundle = bundles.get(definition);
+        if (bundle != null && (definitionChangeTracker == null ||
+                bundle.lastModified == getLastModified(definition, bundle.inlinedSchemas))) {
+            return bundle;
+        }
+        long builtGeneration = generation.get();
+        DOMResult domResult = new DOMResult();
+        transformer.transform(definition.getSource(), domResult);
+        Document bundledDocument = (Document) domResult.getNode();
+        Collection<XsdSchema> inlinedSchemas = new WsdlBundleBuilder(transformer, xsdSchemas).bundle(bundledDocument);
+        bundle = new Bundle(bundledDocument, inlinedSchemas, getLastModified(definition, inlinedSchemas));
+        bundles.put(definition, bundle);
+        if (generation.get() != builtGeneration) {
+            // built from the previous version, and possibly put after the change cleared the bundles
+            bundles.remove(definition, bundle);
+        }
+        return bundle;
+    }
+
+    /**
+     * Invoked by the {@link DefinitionChangeTracker} when the file of the given definition has changed. Discards any
+     * state derived from the previous version.
+     *
+     * @param definition the changed definition
+     */
+    protected void definitionChanged(Object definition) {
+        generation.incrementAndGet();
+        responseSizeEstimator.reset(definition);
+        eTags.remove(definition);
+        if (renderedFileCache != null) {
+            renderedFileCache.invalidate(definition);
+        }
+        // a bundle may inline a changed schema as well
+        bundles.clear();
     }
 
     @Override
@@ -172,4 +441,47 @@ public class ReactorWsdlDefinitionHandlerAdapter extends ReactorLocationTransfor
         transformLocations(schemaLocationXPathExpression, definitionDocument, request);
     }
 
+    /**
+     * A definition with its published schemas inlined, and its serialized form once it was first written.
+     */
+    private static final class Bundle {
+
+        private final Document document;
+
+        private final Collection<XsdSchema> inlinedSchemas;
+
+        private final long lastModified;
+
+        private volatile byte[] content;
+
+        private volatile String eTag;
+
+        private Bundle(Document document, Collection<XsdSchema> inlinedSchemas, long lastModified) {
+            this.document = document;
+            this.inlinedSchemas = inlinedSchemas;
+            this.lastModified = lastModified;
+        }
+
+        private byte[] getContent(Transformer transformer) throws Exception {
+            byte[] bytes = content;
+            if (bytes == null) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                synchronized (document) {
+                    transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+                }
+                bytes = outputStream.toByteArray();
+                content = bytes;
+            }
+            return bytes;
+        }
+
+        private String getETag(Transformer transformer) throws Exception {
+            String tag = eTag;
+            if (tag == null) {
+                tag = LastModifiedHelper.createETag(getContent(transformer));
+                eTag = tag;
+            }
+            return tag;
+        }
+    }
 }
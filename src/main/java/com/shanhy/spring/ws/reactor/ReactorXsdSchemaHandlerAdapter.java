@@ -2,6 +2,7 @@ package com.shanhy.spring.ws.reactor;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -18,8 +19,12 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 重写 XsdSchemaHandlerAdapter
@@ -45,6 +50,21 @@ public class ReactorXsdSchemaHandlerAdapter extends ReactorLocationTransformerOb
 
     private boolean transformSchemaLocations = false;
 
+    private ResponseSizeEstimator responseSizeEstimator = new ResponseSizeEstimator();
+
+    private DefinitionChangeTracker definitionChangeTracker;
+
+    private RenderedFileCache renderedFileCache;
+
+    private XmlParserFactories xmlParserFactories = XmlParserFactories.getShared();
+
+    private final Map<Object, String> eTags = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every schema change, so that an entity tag of a previous version is not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * Sets the XPath expression used for extracting the {@code schemaLocation} attributes from the WSDL 1.1 definition.
      *
@@ -62,38 +82,162 @@ public class ReactorXsdSchemaHandlerAdapter extends ReactorLocationTransformerOb
         this.transformSchemaLocations = transformSchemaLocations;
     }
 
+    /**
+     * Returns the {@link ResponseSizeEstimator} used to size response buffers.
+     */
+    public ResponseSizeEstimator getResponseSizeEstimator() {
+        return responseSizeEstimator;
+    }
+
+    /**
+     * Sets the {@link ResponseSizeEstimator} used to size response buffers per definition.
+     */
+    public void setResponseSizeEstimator(ResponseSizeEstimator responseSizeEstimator) {
+        this.responseSizeEstimator = responseSizeEstimator;
+    }
+
+    /**
+     * Sets the {@link RenderedFileCache} the schema is rendered to once and served from, bypassing the heap. Only used
+     * when no location transformation is enabled, as the rendered bytes are the same for every request then.
+     */
+    public void setRenderedFileCache(RenderedFileCache renderedFileCache) {
+        this.renderedFileCache = renderedFileCache;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} from which transformers are leased. Defaults to the shared registry.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
+    /**
+     * Renders the given schema into the {@link RenderedFileCache}, if one is set and it would be served from there.
+     *
+     * @param handler the XSD schema
+     * @throws Exception in case of errors
+     */
+    public void prepareRenderedFile(Object handler) throws Exception {
+        if (renderedFileCache != null && !transformSchemaLocations) {
+            renderedFileCache.prepare(handler, outputStream -> render(handler, outputStream));
+        }
+    }
+
+    /**
+     * Sets the {@link DefinitionChangeTracker} providing last modified dates, and notifying of changes.
+     */
+    public void setDefinitionChangeTracker(DefinitionChangeTracker definitionChangeTracker) {
+        this.definitionChangeTracker = definitionChangeTracker;
+        definitionChangeTracker.addListener(this::definitionChanged);
+    }
+
     @Override
     public long getLastModified(ServerHttpRequest request, Object handler) {
+        if (definitionChangeTracker != null) {
+            Long lastModified = definitionChangeTracker.getLastModified(handler);
+            if (lastModified != null) {
+                return lastModified;
+            }
+        }
         Source schemaSource = ((XsdSchema) handler).getSource();
         return LastModifiedHelper.getLastModified(schemaSource);
     }
 
+    /**
+     * Returns the entity tag of the given schema, a hash of its rendered content, or {@code null} if the content
+     * depends on the request.
+     *
+     * @param request current HTTP request
+     * @param handler the XSD schema
+     * @return the quoted entity tag, or {@code null}
+     * @throws Exception in case of errors
+     */
+    public String getETag(ServerHttpRequest request, Object handler) throws Exception {
+        if (transformSchemaLocations) {
+            return null;
+        }
+        String eTag = eTags.get(handler);
+        if (eTag == null) {
+            long renderedGeneration = generation.get();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            render(handler, outputStream);
+            eTag = LastModifiedHelper.createETag(outputStream.toByteArray());
+            eTags.put(handler, eTag);
+            if (generation.get() != renderedGeneration) {
+                // rendered from the previous version
+                eTags.remove(handler, eTag);
+            }
+        }
+        return eTag;
+    }
+
     @Override
     public Mono<Void> handle(ServerHttpRequest request, ServerHttpResponse response, Object handler)
             throws Exception {
         if (HttpTransportConstants.METHOD_GET.equals(request.getMethodValue())) {
-            Transformer transformer = createTransformer();
-            Source schemaSource = getSchemaSource((XsdSchema) handler);
-
-            if (transformSchemaLocations) {
-                DOMResult domResult = new DOMResult();
-                transformer.transform(schemaSource, domResult);
-                Document schemaDocument = (Document) domResult.getNode();
-                transformSchemaLocations(schemaDocument, request);
-                schemaSource = new DOMSource(schemaDocument);
+            if (renderedFileCache != null && !transformSchemaLocations) {
+                response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+                return renderedFileCache.write(handler, outputStream -> render(handler, outputStream), response);
+            }
+            try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+                return writeSchema(request, response, handler, transformerLease.get());
             }
+        } else {
+            response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+        }
+        return Mono.empty();
+    }
+
+    private Mono<Void> writeSchema(ServerHttpRequest request, ServerHttpResponse response, Object handler,
+                                   Transformer transformer) throws Exception {
+        Source schemaSource = getSchemaSource((XsdSchema) handler);
 
-            response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+        if (transformSchemaLocations) {
+            DOMResult domResult = new DOMResult();
+            transformer.transform(schemaSource, domResult);
+            Document schemaDocument = (Document) domResult.getNode();
+            transformSchemaLocations(schemaDocument, request);
+            schemaSource = new DOMSource(schemaDocument);
+        }
 
-            DataBuffer dataBuffer = response.bufferFactory().allocateBuffer();
+        response.getHeaders().setContentType(MediaType.parseMediaType(CONTENT_TYPE));
+
+        int initialCapacity = responseSizeEstimator.estimate(handler);
+        DataBuffer dataBuffer = response.bufferFactory().allocateBuffer(initialCapacity);
+        try {
             StreamResult responseResult = new StreamResult(dataBuffer.asOutputStream()); // reactor 方式
             transformer.transform(schemaSource, responseResult);
+        } catch (Exception ex) {
+            DataBufferUtils.release(dataBuffer);
+            throw ex;
+        }
 
-            return response.writeWith(Mono.just(dataBuffer));
-        } else {
-            response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+        int size = dataBuffer.readableByteCount();
+        responseSizeEstimator.record(handler, initialCapacity, size);
+        response.getHeaders().setContentLength(size);
+
+        return response.writeWith(Mono.just(dataBuffer));
+    }
+
+    /**
+     * Invoked by the {@link DefinitionChangeTracker} when the file of the given definition has changed. Discards any
+     * state derived from the previous version.
+     *
+     * @param definition the changed definition
+     */
+    protected void definitionChanged(Object definition) {
+        generation.incrementAndGet();
+        responseSizeEstimator.reset(definition);
+        eTags.remove(definition);
+        if (renderedFileCache != null) {
+            renderedFileCache.invalidate(definition);
+        }
+    }
+
+    private void render(Object handler, OutputStream outputStream) throws Exception {
+        try (BoundedObjectPool.Lease<Transformer> transformerLease = xmlParserFactories.leaseTransformer()) {
+            transformerLease.get().transform(getSchemaSource((XsdSchema) handler), new StreamResult(outputStream));
         }
-        return Mono.empty();
     }
 
     @Override
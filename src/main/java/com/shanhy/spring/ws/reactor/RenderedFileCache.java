@@ -0,0 +1,229 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.FileSystemUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WSDL/XSD 渲染结果的文件缓存，渲染一次写入临时文件，之后通过零拷贝（sendfile）或内存映射输出，不占用 JVM 堆
+ *
+ * @author shanhy
+ * @date 2026-10-18 14:31
+ */
+public class RenderedFileCache implements DisposableBean {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Path directory;
+
+    private final Map<Object, RenderedFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation, so that a file rendered from a previous version is not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates a new cache in a new temporary directory.
+     */
+    public RenderedFileCache() throws IOException {
+        this(Files.createTempDirectory("spring-ws-reactor-"));
+    }
+
+    /**
+     * Creates a new cache in the given directory.
+     *
+     * @param directory the directory the rendered files are written to
+     */
+    public RenderedFileCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Callback that renders a definition.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+
+        /**
+         * Renders the definition into the given stream.
+         */
+        void render(OutputStream outputStream) throws Exception;
+    }
+
+    /**
+     * Renders the given definition to a file, unless that has been done already.
+     *
+     * @param definition the {@code WsdlDefinition} or {@code XsdSchema}
+     * @param renderer renders the definition
+     */
+    public void prepare(Object definition, Renderer renderer) throws Exception {
+        getRenderedFile(definition, renderer);
+    }
+
+    /**
+     * Writes the rendered file of the given definition to the response, rendering it first if necessary. Uses
+     * {@link ZeroCopyHttpOutputMessage} if the response supports it, and a memory-mapped buffer otherwise.
+     *
+     * @param definition the {@code WsdlDefinition} or {@code XsdSchema}
+     * @param renderer renders the definition if there is no file yet
+     * @param response current HTTP response
+     * @return completion of the write
+     */
+    public Mono<Void> write(Object definition, Renderer renderer, ServerHttpResponse response) throws Exception {
+        // the file is referenced while it is written, so invalidating it meanwhile defers its deletion
+        return Mono.using(() -> retainRenderedFile(definition, renderer),
+                renderedFile -> write(renderedFile, response),
+                RenderedFile::release);
+    }
+
+    private Mono<Void> write(RenderedFile renderedFile, ServerHttpResponse response) {
+        response.getHeaders().setContentLength(renderedFile.size);
+        if (response instanceof ZeroCopyHttpOutputMessage) {
+            return ((ZeroCopyHttpOutputMessage) response).writeWith(renderedFile.path, 0, renderedFile.size);
+        }
+        return response.writeWith(
+                Mono.fromCallable(() -> response.bufferFactory().wrap(renderedFile.getMappedBuffer())));
+    }
+
+    /**
+     * Discards the rendered file of the given definition, so that it is rendered again on next use. The file is
+     * deleted once the last response reading it has completed.
+     */
+    public void invalidate(Object definition) {
+        generation.incrementAndGet();
+        RenderedFile renderedFile = files.remove(definition);
+        if (renderedFile != null) {
+            renderedFile.release();
+        }
+    }
+
+    private RenderedFile retainRenderedFile(Object definition, Renderer renderer) throws Exception {
+        for (;;) {
+            RenderedFile renderedFile = getRenderedFile(definition, renderer);
+            if (renderedFile.retain()) {
+                return renderedFile;
+            }
+            // invalidated and deleted in the meantime
+        }
+    }
+
+    private RenderedFile getRenderedFile(Object definition, Renderer renderer) throws Exception {
+        for (;;) {
+            RenderedFile renderedFile = files.get(definition);
+            if (renderedFile != null) {
+                return renderedFile;
+            }
+            long renderedGeneration = generation.get();
+            Path temporaryFile = Files.createTempFile(directory, "rendering-", ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                renderer.render(outputStream);
+            }
+            Path path = Files.createTempFile(directory, "definition-", ".xml");
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            renderedFile = new RenderedFile(this, path, Files.size(path));
+            RenderedFile existing = files.putIfAbsent(definition, renderedFile);
+            if (existing != null) {
+                delete(path);
+                return existing;
+            }
+            if (generation.get() != renderedGeneration) {
+                // rendered from the previous version, and possibly put after the change invalidated it
+                if (files.remove(definition, renderedFile)) {
+                    renderedFile.release();
+                }
+                continue;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rendered [" + definition + "] to [" + path + "]");
+            }
+            return renderedFile;
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            // still mapped on some platforms
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        files.clear();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private static final class RenderedFile {
+
+        private final RenderedFileCache cache;
+
+        private final Path path;
+
+        private final long size;
+
+        /**
+         * One reference held by the cache, plus one per response being written; the file is deleted at 0.
+         */
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        private volatile MappedByteBuffer mappedBuffer;
+
+        private RenderedFile(RenderedFileCache cache, Path path, long size) {
+            this.cache = cache;
+            this.path = path;
+            this.size = size;
+        }
+
+        private boolean retain() {
+            for (;;) {
+                int count = refCount.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (refCount.decrementAndGet() == 0) {
+                mappedBuffer = null;
+                cache.delete(path);
+            }
+        }
+
+        private ByteBuffer getMappedBuffer() throws IOException {
+            MappedByteBuffer buffer = mappedBuffer;
+            if (buffer == null) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                mappedBuffer = buffer;
+            }
+            // every response gets its own position and limit
+            return buffer.duplicate();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.util.Assert;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 响应大小估算器，按操作/定义维护响应字节数的滚动估算值（EWMA），用于确定响应缓冲区的初始容量；键数量有上限，超出时淘汰最久未使用的键
+ *
+ * @author shanhy
+ * @date 2026-10-18 09:12
+ */
+public class ResponseSizeEstimator {
+
+    /**
+     * Default initial capacity of a response buffer, the same as the default of
+     * {@link org.springframework.core.io.buffer.DataBufferFactory#allocateBuffer()} implementations.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+    /**
+     * Default maximum capacity that will be pre-allocated for a single response.
+     */
+    public static final int DEFAULT_MAX_CAPACITY = 4 * 1024 * 1024;
+
+    /**
+     * Default maximum number of keys for which statistics are kept.
+     */
+    public static final int DEFAULT_MAX_KEYS = 1024;
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder avoidedReallocations = new LongAdder();
+
+    private final LongAdder reallocations = new LongAdder();
+
+    private double smoothingFactor = 0.2d;
+
+    private double headroom = 0.1d;
+
+    private int maxCapacity = DEFAULT_MAX_CAPACITY;
+
+    private volatile int maxKeys = DEFAULT_MAX_KEYS;
+
+    public ResponseSizeEstimator() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Sets the weight of the most recent sample in the moving average, between 0 (exclusive) and 1 (inclusive).
+     * Defaults to {@code 0.2}.
+     */
+    public void setSmoothingFactor(double smoothingFactor) {
+        Assert.isTrue(smoothingFactor > 0 && smoothingFactor <= 1, "'smoothingFactor' must be in (0, 1]");
+        this.smoothingFactor = smoothingFactor;
+    }
+
+    /**
+     * Sets the fraction added on top of the moving average when sizing a buffer. Defaults to {@code 0.1}.
+     */
+    public void setHeadroom(double headroom) {
+        Assert.isTrue(headroom >= 0, "'headroom' must not be negative");
+        this.headroom = headroom;
+    }
+
+    /**
+     * Sets the maximum capacity that will be pre-allocated for a single response. Defaults to {@code 4 MB}.
+     */
+    public void setMaxCapacity(int maxCapacity) {
+        Assert.isTrue(maxCapacity >= DEFAULT_INITIAL_CAPACITY, "'maxCapacity' is too small");
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Sets the maximum number of keys for which statistics are kept, split evenly across segments. When a segment is
+     * full, its least recently used key is evicted. Defaults to {@link #DEFAULT_MAX_KEYS}.
+     */
+    public void setMaxKeys(int maxKeys) {
+        Assert.isTrue(maxKeys > 0, "'maxKeys' must be positive");
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Returns the initial buffer capacity to use for a response identified by the given key.
+     *
+     * @param key the operation or definition key
+     * @return the initial capacity, in bytes
+     */
+    public int estimate(Object key) {
+        Estimate estimate = segmentFor(key).get(key);
+        if (estimate == null) {
+            return DEFAULT_INITIAL_CAPACITY;
+        }
+        double average = Double.longBitsToDouble(estimate.average.get());
+        long capacity = (long) Math.ceil(average * (1 + headroom));
+        return (int) Math.max(DEFAULT_INITIAL_CAPACITY, Math.min(capacity, maxCapacity));
+    }
+
+    /**
+     * Records the actual size of a response that was written into a buffer of the given initial capacity.
+     *
+     * @param key the operation or definition key
+     * @param initialCapacity the capacity returned by {@link #estimate(Object)}
+     * @param size the number of bytes actually written
+     */
+    public void record(Object key, int initialCapacity, int size) {
+        if (size > initialCapacity) {
+            reallocations.increment();
+        } else if (size > DEFAULT_INITIAL_CAPACITY) {
+            avoidedReallocations.increment();
+        }
+        Estimate estimate = segmentFor(key).getOrAdd(key, size, Math.max(1, maxKeys / SEGMENTS));
+        if (estimate != null) {
+            estimate.update(size, smoothingFactor);
+        }
+    }
+
+    /**
+     * Returns the number of responses that fit into their pre-sized buffer, but would have outgrown a default-sized
+     * one.
+     */
+    public long getAvoidedReallocations() {
+        return avoidedReallocations.sum();
+    }
+
+    /**
+     * Returns the number of responses that outgrew their pre-sized buffer.
+     */
+    public long getReallocations() {
+        return reallocations.sum();
+    }
+
+    /**
+     * Discards the statistics kept for the given key, for instance after the underlying definition has changed.
+     */
+    public void reset(Object key) {
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * Returns the number of keys for which statistics are currently kept.
+     */
+    public int getTrackedKeys() {
+        int trackedKeys = 0;
+        for (Segment segment : segments) {
+            trackedKeys += segment.size();
+        }
+        return trackedKeys;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * A bounded share of the keys, in least recently used order.
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<Object, Estimate> estimates = new LinkedHashMap<>(16, 0.75f, true);
+
+        private synchronized Estimate get(Object key) {
+            return estimates.get(key);
+        }
+
+        /**
+         * Returns the estimate of the given key, or {@code null} if it was just added with the given size as its
+         * first sample.
+         */
+        private synchronized Estimate getOrAdd(Object key, int size, int capacity) {
+            Estimate estimate = estimates.get(key);
+            if (estimate != null) {
+                return estimate;
+            }
+            // also shrinks a segment after the limit was lowered
+            Iterator<Estimate> eldest = estimates.values().iterator();
+            while (estimates.size() >= capacity) {
+                eldest.next();
+                eldest.remove();
+            }
+            estimates.put(key, new Estimate(size));
+            return null;
+        }
+
+        private synchronized void remove(Object key) {
+            estimates.remove(key);
+        }
+
+        private synchronized int size() {
+            return estimates.size();
+        }
+    }
+
+    private static final class Estimate {
+
+        private final AtomicLong average;
+
+        private Estimate(int size) {
+            this.average = new AtomicLong(Double.doubleToRawLongBits(size));
+        }
+
+        private void update(int size, double smoothingFactor) {
+            long current;
+            long next;
+            do {
+                current = average.get();
+                double value = Double.longBitsToDouble(current);
+                next = Double.doubleToRawLongBits(value + smoothingFactor * (size - value));
+            } while (!average.compareAndSet(current, next));
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.shanhy.spring.ws.reactor;
 
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessage;
 import org.springframework.ws.transport.AbstractReceiverConnection;
 import org.springframework.ws.transport.EndpointAwareWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
@@ -15,10 +18,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 新增实现
@@ -33,14 +40,18 @@ public class ServerHttpConnection extends AbstractReceiverConnection
 
     private final ServerHttpResponse response;
 
-    private final DataBuffer responseDataBuffer;
-
     private boolean statusCodeSet = false;
 
+    private QName faultCode;
+
     private final InputStream requestInputStream;
 
     private final OutputStream responseOutputStream;
 
+    private StreamingResponse streamingResponse;
+
+    private boolean fastInfosetAccepted = false;
+
     /**
      * Constructs a new servlet connection with the given {@code HttpServletRequest} and
      * {@code HttpServletResponse}.
@@ -54,7 +65,6 @@ public class ServerHttpConnection extends AbstractReceiverConnection
                                    InputStream requestInputStream, OutputStream responseOutputStream) {
         this.request = request;
         this.response = response;
-        this.responseDataBuffer = response.bufferFactory().allocateBuffer();
         this.requestInputStream = requestInputStream;
         this.responseOutputStream = responseOutputStream;
     }
@@ -138,6 +148,14 @@ public class ServerHttpConnection extends AbstractReceiverConnection
         return this.responseOutputStream;
     }
 
+    @Override
+    protected void onSendBeforeWrite(WebServiceMessage message) throws IOException {
+        // a streamed response is spliced as text, so it stays textual XML
+        if (fastInfosetAccepted && streamingResponse == null && message instanceof SaajSoapMessage) {
+            FastInfosetCodec.useFastInfoset(((SaajSoapMessage) message).getSaajMessage());
+        }
+    }
+
     @Override
     protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
         statusCodeSet = true;
@@ -172,6 +190,7 @@ public class ServerHttpConnection extends AbstractReceiverConnection
 
     @Override
     public void setFaultCode(QName faultCode) throws IOException {
+        this.faultCode = faultCode;
         if (faultCode != null) {
             if (SOAPConstants.SOAP_SENDER_FAULT.equals(faultCode)) {
                 getResponse()
@@ -186,17 +205,223 @@ public class ServerHttpConnection extends AbstractReceiverConnection
         statusCodeSet = true;
     }
 
+    /**
+     * Returns the fault code of the response sent over this connection, or {@code null} if it was not a fault.
+     */
+    public QName getFaultCode() {
+        return faultCode;
+    }
+
+    /**
+     * Returns the items to stream in place of the marker written to the response envelope, or {@code null} if none.
+     */
+    StreamingResponse getStreamingResponse() {
+        return streamingResponse;
+    }
+
+    void setStreamingResponse(StreamingResponse streamingResponse) {
+        this.streamingResponse = streamingResponse;
+    }
+
+    /**
+     * Sets whether the client accepts a Fast Infoset response, which a SAAJ message then writes directly.
+     */
+    void setFastInfosetAccepted(boolean fastInfosetAccepted) {
+        this.fastInfosetAccepted = fastInfosetAccepted;
+    }
+
     static class InputStreamCollector {
 
-        private InputStream is;
+        private final List<DataBuffer> dataBuffers = new ArrayList<>();
+
+        /**
+         * One reference held by the request pipeline, plus one per reader; the buffers are released when it drops to 0.
+         */
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        private final IncrementalEnvelopeScanner scanner;
+
+        private final DiskSpool diskSpool;
+
+        private final MemoryBudget.Reservation reservation;
+
+        private final XmlParserFactories xmlParserFactories;
+
+        private DiskSpool.SpoolFile spoolFile;
+
+        private SoapEnvelopeSniffer.Result envelope;
+
+        private long size;
+
+        InputStreamCollector() {
+            this(null, null, null, XmlParserFactories.getShared());
+        }
+
+        /**
+         * @param scanner the incremental envelope scanner, or {@code null}
+         * @param diskSpool the spool large bodies are written to, or {@code null}
+         * @param reservation the memory budget reservation the bytes are handed back to once spooled, or {@code null}
+         * @param xmlParserFactories the registry the envelope is sniffed with
+         */
+        InputStreamCollector(IncrementalEnvelopeScanner scanner, DiskSpool diskSpool,
+                             MemoryBudget.Reservation reservation, XmlParserFactories xmlParserFactories) {
+            this.scanner = scanner;
+            this.diskSpool = diskSpool;
+            this.reservation = reservation;
+            this.xmlParserFactories = xmlParserFactories;
+        }
+
+        public void collect(DataBuffer dataBuffer) {
+            size += dataBuffer.readableByteCount();
+            try {
+                if (scanner != null) {
+                    scanner.feed(dataBuffer);
+                }
+                if (spoolFile == null && diskSpool != null && diskSpool.exceedsThreshold(size)) {
+                    spool();
+                }
+            } catch (RuntimeException ex) {
+                DataBufferUtils.release(dataBuffer);
+                throw ex;
+            }
+            if (spoolFile == null) {
+                dataBuffers.add(dataBuffer);
+                return;
+            }
+            try {
+                spoolFile.write(dataBuffer);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
 
-        public void collectInputStream(InputStream is) {
-            if (this.is == null) this.is = is;
-            this.is = new SequenceInputStream(this.is, is);
+        private void spool() {
+            try {
+                spoolFile = diskSpool.create();
+                for (DataBuffer dataBuffer : dataBuffers) {
+                    spoolFile.write(dataBuffer);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            // only released once they are all written, so a failure leaves them to release()
+            dataBuffers.forEach(DataBufferUtils::release);
+            dataBuffers.clear();
+            if (reservation != null) {
+                reservation.spooled();
+            }
+        }
+
+        /**
+         * Completes incremental parsing, if enabled, once the whole body has been collected.
+         *
+         * @throws org.springframework.ws.InvalidXmlException if the body is not well-formed
+         */
+        public void finish() {
+            if (scanner != null) {
+                envelope = scanner.finish();
+            }
+        }
+
+        /**
+         * Returns the values sniffed from the envelope. Unless they were found by incremental parsing, the body is
+         * sniffed on first use.
+         */
+        public SoapEnvelopeSniffer.Result getEnvelope() {
+            if (envelope == null) {
+                envelope = SoapEnvelopeSniffer.sniff(getInputStream(), xmlParserFactories);
+            }
+            return envelope;
         }
 
+        /**
+         * Returns the values sniffed from the envelope, or {@code null} if it has not been sniffed yet. Never reads the
+         * body.
+         */
+        public SoapEnvelopeSniffer.Result getSniffedEnvelope() {
+            return envelope;
+        }
+
+        /**
+         * Takes a reference to the collected body, so it outlives a cancelled request pipeline while it is read.
+         *
+         * @return {@code false} if the body has already been released
+         */
+        public boolean retain() {
+            for (;;) {
+                int count = refCount.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Drops a reference to the collected body, releasing the buffers when it was the last one.
+         */
+        public void release() {
+            if (refCount.decrementAndGet() == 0) {
+                dataBuffers.forEach(DataBufferUtils::release);
+                dataBuffers.clear();
+                if (spoolFile != null) {
+                    spoolFile.close();
+                }
+            }
+        }
+
+        /**
+         * Returns a new stream over the collected body. Each stream reads slices of the buffers, so the body can be
+         * read more than once, for example to sniff the envelope before it is parsed. A spooled body is read from a
+         * memory-mapped view of its file.
+         */
         public InputStream getInputStream() {
-            return this.is;
+            if (spoolFile != null) {
+                try {
+                    return spoolFile.getInputStream();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            List<InputStream> inputStreams = new ArrayList<>(dataBuffers.size());
+            for (DataBuffer dataBuffer : dataBuffers) {
+                inputStreams.add(dataBuffer.slice(dataBuffer.readPosition(), dataBuffer.readableByteCount())
+                        .asInputStream());
+            }
+            return new SequenceInputStream(Collections.enumeration(inputStreams));
+        }
+
+        /**
+         * Copies at most the given number of leading bytes of the body into a new buffer, so that keeping it pins
+         * neither the request buffers nor a spool file. The caller must release the buffer.
+         */
+        public DataBuffer copyPrefix(int maxBytes, DataBufferFactory bufferFactory) {
+            int length = (int) Math.min(size, maxBytes);
+            DataBuffer prefix = bufferFactory.allocateBuffer(length);
+            try (InputStream inputStream = getInputStream()) {
+                byte[] buffer = new byte[Math.min(length, 8192)];
+                int remaining = length;
+                while (remaining > 0) {
+                    int read = inputStream.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (read <= 0) {
+                        break;
+                    }
+                    prefix.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                return prefix;
+            } catch (IOException ex) {
+                DataBufferUtils.release(prefix);
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        public long getSize() {
+            return this.size;
         }
     }
 }
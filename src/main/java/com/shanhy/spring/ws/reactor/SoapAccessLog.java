@@ -0,0 +1,220 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步 SOAP 访问日志：请求线程只向预分配的环形缓冲区写入记录，由后台线程格式化并批量写入文件，缓冲区满时丢弃并计数
+ *
+ * @author shanhy
+ * @date 2026-10-18 15:20
+ */
+public class SoapAccessLog implements DisposableBean {
+
+    /**
+     * Default number of records the ring buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int MAX_BATCH_SIZE = 512;
+
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final AccessLogRecord[] ring;
+
+    private final int mask;
+
+    /**
+     * Next sequence to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next sequence to be consumed; all lower sequences are free for reuse.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final Writer writer;
+
+    private final AccessLogFormat format;
+
+    private final Thread drainThread;
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new access log appending to the given file in the {@link AccessLogFormat#TEXT} format.
+     *
+     * @param file the log file
+     */
+    public SoapAccessLog(Path file) throws IOException {
+        this(file, AccessLogFormat.TEXT, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new access log appending to the given file.
+     *
+     * @param file the log file
+     * @param format the format of a line
+     * @param capacity the number of records the ring buffer holds, rounded up to a power of two
+     */
+    public SoapAccessLog(Path file, AccessLogFormat format, int capacity) throws IOException {
+        Assert.notNull(format, "'format' must not be null");
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+        this.ring = new AccessLogRecord[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new AccessLogRecord();
+        }
+        this.mask = size - 1;
+        this.format = format;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.drainThread = new Thread(this::drain, "soap-access-log");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    /**
+     * Records a completed call. Never blocks; if the ring buffer is full the record is dropped and counted.
+     *
+     * @param operation the operation key
+     * @param status the HTTP status code
+     * @param faultCode the fault code, or {@code null}
+     * @param bytesIn the number of request bytes, or {@code -1}
+     * @param bytesOut the number of response bytes, or {@code -1}
+     * @param latencyNanos the latency of the call
+     * @param clientAddress the client address, or {@code null}
+     */
+    public void log(String operation, int status, QName faultCode, long bytesIn, long bytesOut, long latencyNanos,
+                    InetSocketAddress clientAddress) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        AccessLogRecord record = ring[(int) (sequence & mask)];
+        record.timestamp = System.currentTimeMillis();
+        record.operation = operation;
+        record.status = status;
+        record.faultCode = faultCode != null ? faultCode.getLocalPart() : null;
+        record.bytesIn = bytesIn;
+        record.bytesOut = bytesOut;
+        record.latencyNanos = latencyNanos;
+        record.clientAddress = clientAddress;
+        record.published = sequence + 1;
+    }
+
+    /**
+     * Returns the number of records dropped because the ring buffer was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of records written to the file.
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    private void drain() {
+        try {
+            drainUntilStopped();
+        } finally {
+            // only this thread writes, so it is also the one to close the file
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                logger.warn("Could not close access log", ex);
+            }
+        }
+    }
+
+    private void drainUntilStopped() {
+        StringBuilder builder = new StringBuilder(256 * MAX_BATCH_SIZE);
+        while (running || head.get() != tail.get()) {
+            int batch = 0;
+            long sequence = head.get();
+            while (batch < MAX_BATCH_SIZE) {
+                AccessLogRecord record = ring[(int) (sequence & mask)];
+                if (record.published != sequence + 1) {
+                    break;
+                }
+                try {
+                    format.format(record, builder);
+                } catch (RuntimeException ex) {
+                    logger.warn("Could not format access log record", ex);
+                }
+                builder.append(System.lineSeparator());
+                record.operation = null;
+                record.clientAddress = null;
+                sequence++;
+                head.set(sequence);
+                batch++;
+            }
+            if (batch > 0) {
+                write(builder);
+                written.add(batch);
+                builder.setLength(0);
+            } else if (running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            } else {
+                // claimed but not yet published by a producer
+                Thread.yield();
+            }
+        }
+    }
+
+    private void write(StringBuilder builder) {
+        try {
+            writer.append(builder);
+            writer.flush();
+        } catch (IOException ex) {
+            logger.warn("Could not write access log", ex);
+        }
+    }
+
+    /**
+     * Writes the remaining records and closes the file, waiting up to five seconds for the records to be written.
+     * Calling it more than once has no effect.
+     */
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainThread);
+        drainThread.join(5000L);
+        if (drainThread.isAlive()) {
+            logger.warn("Access log did not finish writing within 5 seconds; the file is closed once it does");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * BlockHound 集成，用于测试：把 reactor-netty 事件循环视为非阻塞线程，检测到阻塞调用时记录其所在的 SOAP 操作
+ *
+ * <p>Install it with {@code BlockHound.install(new SoapBlockHoundIntegration())}; the operation is known when an
+ * {@link EventLoopWatchdog} is set on the dispatcher. Requires {@code io.projectreactor.tools:blockhound}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 20:10
+ */
+public class SoapBlockHoundIntegration implements BlockHoundIntegration {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    @Override
+    public void applyTo(BlockHound.Builder builder) {
+        builder.nonBlockingThreadPredicate(predicate -> predicate.or(EventLoopWatchdog.nonBlockingThreads()));
+        // reads the entropy pool once, for the streaming response marker
+        builder.allowBlockingCallsInside("java.util.UUID", "randomUUID");
+        builder.blockingMethodCallback(method -> {
+            BlockingOperationError error = new BlockingOperationError(method);
+            logger.error("Blocking call in operation [" + EventLoopWatchdog.currentOperation() + "] on thread [" +
+                    Thread.currentThread().getName() + "]", error);
+            throw error;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.shanhy.spring.ws.reactor;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * 轻量级 SOAP 信封探测：以 StAX 流式读取 Header 和 Body 的第一个子元素，不构建 DOM，读取到 payload 根元素即停止
+ *
+ * @author shanhy
+ * @date 2026-10-18 15:52
+ */
+public final class SoapEnvelopeSniffer {
+
+    static final String WSA_2005_NAMESPACE_URI = "http://www.w3.org/2005/08/addressing";
+
+    static final String WSA_2004_NAMESPACE_URI = "http://schemas.xmlsoap.org/ws/2004/08/addressing";
+
+    static final String MESSAGE_ID_ELEMENT = "MessageID";
+
+    static final String HEADER_ELEMENT = "Header";
+
+    static final String BODY_ELEMENT = "Body";
+
+    private SoapEnvelopeSniffer() {
+    }
+
+    /**
+     * Reads the given envelope up to the payload root element with the shared {@link XmlParserFactories}.
+     *
+     * @param inputStream the envelope
+     * @return the sniffed values
+     * @see #sniff(InputStream, XmlParserFactories)
+     */
+    public static Result sniff(InputStream inputStream) {
+        return sniff(inputStream, XmlParserFactories.getShared());
+    }
+
+    /**
+     * Reads the given envelope up to the payload root element. Malformed input is not reported; the result then holds
+     * whatever was found before the error.
+     *
+     * @param inputStream the envelope
+     * @param xmlParserFactories the registry the stream reader is created from
+     * @return the sniffed values
+     */
+    public static Result sniff(InputStream inputStream, XmlParserFactories xmlParserFactories) {
+        Result result = new Result();
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlParserFactories.createXmlStreamReader(inputStream);
+            int depth = 0;
+            String section = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        section = reader.getLocalName();
+                    } else if (depth == 3 && BODY_ELEMENT.equals(section)) {
+                        result.payloadRoot = reader.getName();
+                        break;
+                    } else if (depth == 3 && HEADER_ELEMENT.equals(section) &&
+                            MESSAGE_ID_ELEMENT.equals(reader.getLocalName()) &&
+                            isAddressingNamespace(reader.getNamespaceURI())) {
+                        result.messageId = reader.getElementText().trim();
+                        // getElementText() consumed the end element
+                        depth--;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            // left to the message factory to report
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // ignore
+                }
+            }
+        }
+        return result;
+    }
+
+    static boolean isAddressingNamespace(String namespaceUri) {
+        return WSA_2005_NAMESPACE_URI.equals(namespaceUri) || WSA_2004_NAMESPACE_URI.equals(namespaceUri);
+    }
+
+    /**
+     * Values sniffed from an envelope.
+     */
+    public static final class Result {
+
+        String messageId;
+
+        QName payloadRoot;
+
+        /**
+         * Returns the WS-Addressing {@code MessageID} header, or {@code null} if there is none.
+         */
+        public String getMessageId() {
+            return messageId;
+        }
+
+        /**
+         * Returns the name of the payload root element, or {@code null} if there is none.
+         */
+        public QName getPayloadRoot() {
+            return payloadRoot;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 预序列化的 SOAP Fault 目录，用于传输层错误的快速响应，不经过 WebServiceMessageFactory
+ *
+ * @author shanhy
+ * @date 2026-10-18 10:05
+ */
+public class SoapFaultCatalog {
+
+    private static final String SOAP_12_CONTENT_TYPE = "application/soap+xml";
+
+    private static final MediaType SOAP_11_MEDIA_TYPE = MediaType.parseMediaType("text/xml;charset=UTF-8");
+
+    private static final MediaType SOAP_12_MEDIA_TYPE = MediaType.parseMediaType("application/soap+xml;charset=UTF-8");
+
+    private static final byte[] SOAP_11_PREFIX = ("<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<SOAP-ENV:Body><SOAP-ENV:Fault><faultcode>SOAP-ENV:").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SOAP_11_INFIX = "</faultcode><faultstring xml:lang=\"en\">"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SOAP_11_SUFFIX = "</faultstring></SOAP-ENV:Fault></SOAP-ENV:Body></SOAP-ENV:Envelope>"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SOAP_12_PREFIX = ("<env:Envelope xmlns:env=\"http://www.w3.org/2003/05/soap-envelope\">" +
+            "<env:Body><env:Fault><env:Code><env:Value>env:").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SOAP_12_INFIX = "</env:Value></env:Code><env:Reason><env:Text xml:lang=\"en\">"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SOAP_12_SUFFIX = "</env:Text></env:Reason></env:Fault></env:Body></env:Envelope>"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Transport-level errors for which a fault is pre-serialized.
+     */
+    public enum TransportFault {
+
+        INVALID_XML(HttpStatus.BAD_REQUEST, true, "Invalid XML"),
+
+        METHOD_NOT_ALLOWED(HttpStatus.METHOD_NOT_ALLOWED, true, "Method Not Allowed"),
+
+        PAYLOAD_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, true, "Request Entity Too Large"),
+
+        TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, true, "Too Many Requests"),
+
+        IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, true, "Idempotency Key Reused"),
+
+        SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, false, "Service Unavailable");
+
+        private final HttpStatus status;
+
+        private final boolean senderFault;
+
+        private final String faultString;
+
+        TransportFault(HttpStatus status, boolean senderFault, String faultString) {
+            this.status = status;
+            this.senderFault = senderFault;
+            this.faultString = faultString;
+        }
+
+        /**
+         * Returns the HTTP status sent along with this fault.
+         */
+        public HttpStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the default fault string of this fault.
+         */
+        public String getFaultString() {
+            return faultString;
+        }
+
+        /**
+         * Returns the fault sent along with the given HTTP status.
+         *
+         * @param status the HTTP status code, or {@code null}
+         * @return the fault, or {@code null} if there is none for the status
+         */
+        public static TransportFault forStatus(Integer status) {
+            if (status == null) {
+                return null;
+            }
+            for (TransportFault fault : values()) {
+                if (fault.status.value() == status) {
+                    return fault;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<TransportFault, byte[]> soap11Faults = new EnumMap<>(TransportFault.class);
+
+    private final Map<TransportFault, byte[]> soap12Faults = new EnumMap<>(TransportFault.class);
+
+    public SoapFaultCatalog() {
+        for (TransportFault fault : TransportFault.values()) {
+            soap11Faults.put(fault, render(fault, false, fault.getFaultString()));
+            soap12Faults.put(fault, render(fault, true, fault.getFaultString()));
+        }
+    }
+
+    /**
+     * Sets the status of the given fault on the response, and writes the fault as body.
+     *
+     * @param request current HTTP request, used to determine the SOAP version
+     * @param response current HTTP response
+     * @param fault the fault to write
+     * @return completion of the write
+     */
+    public Mono<Void> write(ServerHttpRequest request, ServerHttpResponse response, TransportFault fault) {
+        response.setStatusCode(fault.getStatus());
+        return writeBody(request, response, fault, null);
+    }
+
+    /**
+     * Writes the given fault as body, leaving the response status untouched.
+     *
+     * @param request current HTTP request, used to determine the SOAP version
+     * @param response current HTTP response
+     * @param fault the fault to write
+     * @param faultString the fault string to splice in, or {@code null} for the default of the fault
+     * @return completion of the write
+     */
+    public Mono<Void> writeBody(ServerHttpRequest request, ServerHttpResponse response, TransportFault fault,
+                                String faultString) {
+        boolean soap12 = isSoap12(request);
+        DataBuffer dataBuffer;
+        if (faultString == null) {
+            byte[] bytes = soap12 ? soap12Faults.get(fault) : soap11Faults.get(fault);
+            dataBuffer = response.bufferFactory().wrap(bytes);
+        } else {
+            byte[] bytes = render(fault, soap12, faultString);
+            dataBuffer = response.bufferFactory().allocateBuffer(bytes.length).write(bytes);
+        }
+        response.getHeaders().setContentType(soap12 ? SOAP_12_MEDIA_TYPE : SOAP_11_MEDIA_TYPE);
+        response.getHeaders().setContentLength(dataBuffer.readableByteCount());
+        return response.writeWith(Mono.just(dataBuffer));
+    }
+
+    private static boolean isSoap12(ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        return contentType != null && contentType.toString().startsWith(SOAP_12_CONTENT_TYPE);
+    }
+
+    private static byte[] render(TransportFault fault, boolean soap12, String faultString) {
+        byte[] prefix = soap12 ? SOAP_12_PREFIX : SOAP_11_PREFIX;
+        byte[] code = (soap12 ? (fault.senderFault ? "Sender" : "Receiver") : (fault.senderFault ? "Client" : "Server"))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] infix = soap12 ? SOAP_12_INFIX : SOAP_11_INFIX;
+        byte[] text = escape(faultString).getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = soap12 ? SOAP_12_SUFFIX : SOAP_11_SUFFIX;
+
+        byte[] bytes = new byte[prefix.length + code.length + infix.length + text.length + suffix.length];
+        int offset = 0;
+        for (byte[] part : new byte[][]{prefix, code, infix, text, suffix}) {
+            System.arraycopy(part, 0, bytes, offset, part.length);
+            offset += part.length;
+        }
+        return bytes;
+    }
+
+    private static String escape(String text) {
+        if (!StringUtils.hasLength(text)) {
+            return "";
+        }
+        StringBuilder builder = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement != null) {
+                if (builder == null) {
+                    builder = new StringBuilder(text.length() + 16).append(text, 0, i);
+                }
+                builder.append(replacement);
+            } else if (builder != null) {
+                builder.append(c);
+            }
+        }
+        return builder != null ? builder.toString() : text;
+    }
+}
@@ -0,0 +1,302 @@
+package com.shanhy.spring.ws.reactor;
+
+import com.shanhy.spring.ws.reactor.SoapFaultCatalog.TransportFault;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.ws.transport.TransportConstants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.xml.namespace.QName;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * SOAP 透传代理：按 SOAPAction 或 payload 根元素匹配路由，匹配的请求逐字节流式转发到后端，后端响应同样流式写回，
+ * 不构建 DOM，由背压控制内存
+ *
+ * <p>To sniff the payload root, the leading buffers of the body are held back until the first child of the SOAP
+ * {@code Body} has been read, up to a {@linkplain #setMaxSniffSize limit}; requests whose payload root is not within
+ * the limit are rejected with a fault rather than handled locally, as they might have been meant for a backend.
+ *
+ * @author shanhy
+ * @date 2026-10-18 18:30
+ */
+public class SoapProxy {
+
+    /**
+     * Default number of leading body bytes searched for the payload root.
+     */
+    public static final int DEFAULT_MAX_SNIFF_SIZE = 64 * 1024;
+
+    private static final List<String> HOP_BY_HOP_HEADERS = Arrays.asList(HttpHeaders.CONNECTION,
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.HOST, HttpHeaders.UPGRADE, HttpHeaders.TE, HttpHeaders.TRAILER,
+            HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION, "Keep-Alive");
+
+    private WebClient webClient = WebClient.create();
+
+    private Map<String, URI> soapActionRoutes = Collections.emptyMap();
+
+    private Map<QName, URI> payloadRootRoutes = Collections.emptyMap();
+
+    private int maxSniffSize = DEFAULT_MAX_SNIFF_SIZE;
+
+    private SoapFaultCatalog soapFaultCatalog = new SoapFaultCatalog();
+
+    private XmlParserFactories xmlParserFactories;
+
+    /**
+     * Sets the {@link WebClient} used to forward requests. Defaults to {@link WebClient#create()}, which is backed by
+     * reactor-netty.
+     */
+    public void setWebClient(WebClient webClient) {
+        Assert.notNull(webClient, "'webClient' must not be null");
+        this.webClient = webClient;
+    }
+
+    /**
+     * Sets the backend URIs by {@code SOAPAction}.
+     */
+    public void setSoapActionRoutes(Map<String, URI> soapActionRoutes) {
+        this.soapActionRoutes = soapActionRoutes;
+    }
+
+    /**
+     * Sets the backend URIs by payload root element.
+     */
+    public void setPayloadRootRoutes(Map<QName, URI> payloadRootRoutes) {
+        this.payloadRootRoutes = payloadRootRoutes;
+    }
+
+    /**
+     * Sets the number of leading body bytes held back while searching for the payload root. Defaults to
+     * {@link #DEFAULT_MAX_SNIFF_SIZE}.
+     */
+    public void setMaxSniffSize(int maxSniffSize) {
+        Assert.isTrue(maxSniffSize > 0, "'maxSniffSize' must be positive");
+        this.maxSniffSize = maxSniffSize;
+    }
+
+    /**
+     * Sets the {@link SoapFaultCatalog} used to reject requests whose payload root could not be found. Set to
+     * {@code null} to respond with a status code and an empty body only.
+     */
+    public void setSoapFaultCatalog(SoapFaultCatalog soapFaultCatalog) {
+        this.soapFaultCatalog = soapFaultCatalog;
+    }
+
+    /**
+     * Returns the {@link XmlParserFactories} with which payload roots are sniffed, or {@code null} if not set.
+     */
+    public XmlParserFactories getXmlParserFactories() {
+        return xmlParserFactories;
+    }
+
+    /**
+     * Sets the {@link XmlParserFactories} with which payload roots are sniffed. Defaults to the registry of the
+     * {@link ReactorMessageDispatcher} the proxy is set on, or else the shared registry.
+     */
+    public void setXmlParserFactories(XmlParserFactories xmlParserFactories) {
+        this.xmlParserFactories = xmlParserFactories;
+    }
+
+    /**
+     * Routes the given request: forwards it if a route matches, or hands it to the given local handler otherwise.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param localHandler handles requests no route matches; the request it is given replays the complete body
+     * @return completion of the response
+     */
+    public Mono<Void> route(ServerHttpRequest request, ServerHttpResponse response,
+                            Function<ServerHttpRequest, Mono<Void>> localHandler) {
+        URI target = getSoapActionRoute(request);
+        if (target != null) {
+            return forward(target, request, response, request.getBody());
+        }
+        if (payloadRootRoutes.isEmpty()) {
+            return localHandler.apply(request);
+        }
+        PayloadRootSniffer sniffer = new PayloadRootSniffer(maxSniffSize,
+                xmlParserFactories != null ? xmlParserFactories : XmlParserFactories.getShared());
+        // the leading buffers up to the payload root are joined into the first one, the rest pass as they arrive
+        Flux<DataBuffer> regroupedBody = request.getBody()
+                .bufferUntil(sniffer::offer)
+                .map(dataBuffers -> dataBuffers.size() == 1 ? dataBuffers.get(0) :
+                        dataBuffers.get(0).factory().join(dataBuffers))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        return regroupedBody.switchOnFirst((signal, body) -> {
+            if (sniffer.isLimitExceeded()) {
+                // the rest of the body is never read
+                return body.take(1)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> rejectUnsniffable(request, response)));
+            }
+            QName payloadRoot = sniffer.getPayloadRoot();
+            URI payloadRootTarget = payloadRoot != null ? payloadRootRoutes.get(payloadRoot) : null;
+            if (payloadRootTarget != null) {
+                return forward(payloadRootTarget, request, response, body);
+            }
+            return localHandler.apply(new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return body;
+                }
+            });
+        }).then();
+    }
+
+    /**
+     * Responds to a request whose payload root is not within the leading bytes searched.
+     *
+     * <p>Default implementation sets the status to 413: Payload Too Large, and writes the corresponding SOAP fault.
+     *
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @return completion of the response
+     */
+    protected Mono<Void> rejectUnsniffable(ServerHttpRequest request, ServerHttpResponse response) {
+        response.setStatusCode(TransportFault.PAYLOAD_TOO_LARGE.getStatus());
+        if (soapFaultCatalog == null) {
+            return response.setComplete();
+        }
+        return soapFaultCatalog.writeBody(request, response, TransportFault.PAYLOAD_TOO_LARGE,
+                "Payload root not found within the first " + maxSniffSize + " bytes");
+    }
+
+    /**
+     * Returns the backend URI for the {@code SOAPAction} of the given request, or {@code null} if none.
+     */
+    protected URI getSoapActionRoute(ServerHttpRequest request) {
+        if (soapActionRoutes.isEmpty()) {
+            return null;
+        }
+        String soapAction = request.getHeaders().getFirst(TransportConstants.HEADER_SOAP_ACTION);
+        if (!StringUtils.hasLength(soapAction)) {
+            return null;
+        }
+        return soapActionRoutes.get(StringUtils.trimTrailingCharacter(
+                StringUtils.trimLeadingCharacter(soapAction, '"'), '"'));
+    }
+
+    /**
+     * Streams the given body to the target, and the backend response back.
+     *
+     * @param target the backend URI
+     * @param request current HTTP request
+     * @param response current HTTP response
+     * @param body the request body
+     * @return completion of the response
+     */
+    protected Mono<Void> forward(URI target, ServerHttpRequest request, ServerHttpResponse response,
+                                 Flux<DataBuffer> body) {
+        return webClient.post()
+                .uri(target)
+                .headers(headers -> copyHeaders(request.getHeaders(), headers))
+                .body(BodyInserters.fromDataBuffers(body))
+                .exchangeToMono(clientResponse -> {
+                    response.setRawStatusCode(clientResponse.rawStatusCode());
+                    copyHeaders(clientResponse.headers().asHttpHeaders(), response.getHeaders());
+                    return response.writeWith(clientResponse.bodyToFlux(DataBuffer.class));
+                });
+    }
+
+    private static void copyHeaders(HttpHeaders source, HttpHeaders target) {
+        source.forEach((name, values) -> {
+            if (!isHopByHop(name)) {
+                target.put(name, values);
+            }
+        });
+    }
+
+    private static boolean isHopByHop(String name) {
+        for (String hopByHop : HOP_BY_HOP_HEADERS) {
+            if (hopByHop.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sniffs the leading buffers of a body as they arrive, until the payload root is found or the limit is exceeded.
+     */
+    private static final class PayloadRootSniffer {
+
+        private final int maxSize;
+
+        private final XmlParserFactories xmlParserFactories;
+
+        private final List<DataBuffer> leadingBuffers = new ArrayList<>();
+
+        private int size;
+
+        private boolean decided;
+
+        private boolean limitExceeded;
+
+        private QName payloadRoot;
+
+        private PayloadRootSniffer(int maxSize, XmlParserFactories xmlParserFactories) {
+            this.maxSize = maxSize;
+            this.xmlParserFactories = xmlParserFactories;
+        }
+
+        /**
+         * Offers the next buffer of the body, still held by the caller.
+         *
+         * @return whether the buffers offered so far can be passed on
+         */
+        private boolean offer(DataBuffer dataBuffer) {
+            if (decided) {
+                return true;
+            }
+            leadingBuffers.add(dataBuffer);
+            size += dataBuffer.readableByteCount();
+            // a start tag cut off at the end of the input is not reported, so the root is only found once complete
+            payloadRoot = SoapEnvelopeSniffer.sniff(leadingInputStream(), xmlParserFactories).getPayloadRoot();
+            if (payloadRoot != null) {
+                decided = true;
+            } else if (size > maxSize) {
+                decided = true;
+                limitExceeded = true;
+            }
+            if (decided) {
+                leadingBuffers.clear();
+            }
+            return decided;
+        }
+
+        private InputStream leadingInputStream() {
+            List<InputStream> inputStreams = new ArrayList<>(leadingBuffers.size());
+            for (DataBuffer dataBuffer : leadingBuffers) {
+                inputStreams.add(dataBuffer.slice(dataBuffer.readPosition(), dataBuffer.readableByteCount())
+                        .asInputStream());
+            }
+            return new SequenceInputStream(Collections.enumeration(inputStreams));
+        }
+
+        private boolean isLimitExceeded() {
+            return limitExceeded;
+        }
+
+        private QName getPayloadRoot() {
+            return payloadRoot;
+        }
+    }
+}
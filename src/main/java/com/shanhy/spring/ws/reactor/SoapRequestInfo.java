@@ -0,0 +1,60 @@
+package com.shanhy.spring.ws.reactor;
+
+import javax.xml.namespace.QName;
+
+/**
+ * 单次请求的处理信息，由 ReactorMessageDispatcher 放入 Reactor Context，处理器适配器在处理过程中填充
+ *
+ * @author shanhy
+ * @date 2026-10-18 15:06
+ */
+public class SoapRequestInfo {
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile String operation;
+
+    private volatile QName faultCode;
+
+    private volatile long bytesIn = -1;
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the request was received.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the operation key of the request, or {@code null} if not determined.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the fault code of the response, or {@code null} if the response is not a fault.
+     */
+    public QName getFaultCode() {
+        return faultCode;
+    }
+
+    public void setFaultCode(QName faultCode) {
+        this.faultCode = faultCode;
+    }
+
+    /**
+     * Returns the number of request body bytes read, or {@code -1} if unknown.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public void setBytesIn(long bytesIn) {
+        this.bytesIn = bytesIn;
+    }
+}
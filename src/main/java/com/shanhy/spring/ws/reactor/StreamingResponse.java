@@ -0,0 +1,94 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式响应：端点返回的 {@link Flux} 暂存在连接上，信封中以标记文本占位，写出时在标记处拆分信封，
+ * 逐个元素序列化到缓冲区中，受写出背压控制，内存占用与单个元素相关
+ *
+ * @author shanhy
+ * @date 2026-10-18 19:30
+ */
+final class StreamingResponse {
+
+    private static final int MIN_ITEM_CAPACITY = 256;
+
+    private final Flux<?> items;
+
+    private final byte[] marker;
+
+    private final Marshaller marshaller;
+
+    private int itemCapacity = MIN_ITEM_CAPACITY;
+
+    /**
+     * Creates a new streaming response.
+     *
+     * @param items the items written in place of the marker
+     * @param marker the ASCII text standing in for the items in the serialized envelope
+     * @param marshaller a JAXB marshaller in fragment mode, used by this response only
+     */
+    StreamingResponse(Flux<?> items, String marker, Marshaller marshaller) {
+        this.items = items;
+        this.marker = marker.getBytes(StandardCharsets.US_ASCII);
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Returns the response body: the envelope up to the marker, the marshalled items, then the rest of the envelope.
+     * If the envelope holds no marker, such as when a fault replaced the response, it is returned as is.
+     *
+     * @param envelope the serialized envelope, released by the returned body
+     * @param bufferFactory allocates the item buffers
+     * @return the response body
+     */
+    Flux<DataBuffer> toBody(DataBuffer envelope, DataBufferFactory bufferFactory) {
+        int markerIndex = indexOf(envelope);
+        if (markerIndex < 0) {
+            return Flux.just(envelope);
+        }
+        int tailIndex = markerIndex + marker.length;
+        byte[] tail = new byte[envelope.writePosition() - tailIndex];
+        envelope.slice(tailIndex, tail.length).read(tail);
+        envelope.writePosition(markerIndex);
+        return Flux.concat(Mono.just(envelope),
+                        items.concatMap(item -> Mono.fromCallable(() -> marshal(item, bufferFactory))),
+                        Mono.fromSupplier(() -> bufferFactory.wrap(tail)))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private DataBuffer marshal(Object item, DataBufferFactory bufferFactory) throws JAXBException {
+        DataBuffer dataBuffer = bufferFactory.allocateBuffer(itemCapacity);
+        try {
+            marshaller.marshal(item, dataBuffer.asOutputStream());
+        } catch (JAXBException | RuntimeException ex) {
+            DataBufferUtils.release(dataBuffer);
+            throw ex;
+        }
+        // items of a result tend to be alike, so size the next buffer after this one
+        itemCapacity = Math.max(MIN_ITEM_CAPACITY, dataBuffer.readableByteCount());
+        return dataBuffer;
+    }
+
+    private int indexOf(DataBuffer envelope) {
+        int last = envelope.writePosition() - marker.length;
+        for (int i = envelope.readPosition(); i <= last; i++) {
+            int j = 0;
+            while (j < marker.length && envelope.getByte(i + j) == marker[j]) {
+                j++;
+            }
+            if (j == marker.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
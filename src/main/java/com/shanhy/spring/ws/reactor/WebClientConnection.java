@@ -0,0 +1,224 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.ws.transport.http.AbstractHttpSenderConnection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 新增实现，基于 WebClient 的非阻塞客户端连接，是 {@link ServerHttpConnection} 在客户端的对应实现
+ *
+ * <p>The request message is written into buffers by {@link #send}, and {@link #exchange(Duration)} performs the HTTP
+ * call without blocking. Once the returned {@code Mono} completes, {@link #receive} reads the buffered response.
+ *
+ * <p>Neither body is streamed. {@code WebServiceMessage.writeTo} pushes the whole request into an
+ * {@code OutputStream} synchronously, before the exchange is subscribed, so the request is held in fixed-size buffers
+ * that are never copied to grow. Streaming it would take a thread blocked on writing for every call in flight. The
+ * response is read by a message factory from an {@code InputStream}, so it is joined into one buffer of at most
+ * {@linkplain #setMaxInMemorySize the maximum in-memory size}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 10:41
+ */
+public class WebClientConnection extends AbstractHttpSenderConnection {
+
+    /**
+     * Default maximum size of a response, in bytes.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 1024 * 1024;
+
+    private static final int REQUEST_BUFFER_SIZE = 8192;
+
+    private static final HttpHeaders EMPTY_HEADERS = HttpHeaders.readOnlyHttpHeaders(new HttpHeaders());
+
+    private final WebClient webClient;
+
+    private final URI uri;
+
+    private final HttpHeaders requestHeaders = new HttpHeaders();
+
+    private final DataBufferFactory bufferFactory;
+
+    private final List<DataBuffer> requestBody = new ArrayList<>();
+
+    private final OutputStream requestOutputStream = new RequestOutputStream();
+
+    private int maxInMemorySize = DEFAULT_MAX_IN_MEMORY_SIZE;
+
+    private int responseCode = -1;
+
+    private HttpHeaders responseHeaders = EMPTY_HEADERS;
+
+    private DataBuffer responseBody;
+
+    /**
+     * Constructs a new connection to the given URI.
+     *
+     * @param webClient the client used to perform the exchange
+     * @param uri the target URI
+     * @param bufferFactory the factory used to allocate the request buffers
+     */
+    public WebClientConnection(WebClient webClient, URI uri, DataBufferFactory bufferFactory) {
+        Assert.notNull(webClient, "'webClient' must not be null");
+        Assert.notNull(uri, "'uri' must not be null");
+        this.webClient = webClient;
+        this.uri = uri;
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * Sets the maximum size of a response; a larger one fails the exchange with a
+     * {@link org.springframework.core.io.buffer.DataBufferLimitException}. Set to {@code -1} for no limit. Defaults to
+     * {@link #DEFAULT_MAX_IN_MEMORY_SIZE}.
+     */
+    public void setMaxInMemorySize(int maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    /**
+     * Sends the request written by {@link #send} and buffers the response.
+     *
+     * @param timeout the maximum time to wait for the complete response, or {@code null} for none
+     * @return completion of the exchange
+     */
+    public Mono<Void> exchange(Duration timeout) {
+        Mono<Void> exchange = webClient.post()
+                .uri(uri)
+                .headers(headers -> headers.addAll(requestHeaders))
+                // retained, as the client releases what it has written and the buffers are released on close
+                .body(BodyInserters.fromDataBuffers(Flux.fromIterable(requestBody).map(DataBufferUtils::retain)))
+                .exchangeToMono(clientResponse -> {
+                    responseCode = clientResponse.rawStatusCode();
+                    responseHeaders = clientResponse.headers().asHttpHeaders();
+                    Flux<DataBuffer> body = clientResponse.bodyToFlux(DataBuffer.class);
+                    return (maxInMemorySize < 0 ? DataBufferUtils.join(body) :
+                            DataBufferUtils.join(body, maxInMemorySize))
+                            .doOnNext(dataBuffer -> responseBody = dataBuffer)
+                            .then();
+                });
+        return timeout != null ? exchange.timeout(timeout) : exchange;
+    }
+
+    /*
+     * URI
+     */
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    /*
+     * Sending request
+     */
+
+    @Override
+    public void addRequestHeader(String name, String value) throws IOException {
+        requestHeaders.add(name, value);
+    }
+
+    @Override
+    protected OutputStream getRequestOutputStream() throws IOException {
+        return requestOutputStream;
+    }
+
+    /*
+     * Receiving response
+     */
+
+    @Override
+    protected int getResponseCode() throws IOException {
+        return responseCode;
+    }
+
+    @Override
+    protected String getResponseMessage() throws IOException {
+        HttpStatus status = HttpStatus.resolve(responseCode);
+        return status != null ? status.getReasonPhrase() : "";
+    }
+
+    @Override
+    protected long getResponseContentLength() throws IOException {
+        return responseBody != null ? responseBody.readableByteCount() : responseHeaders.getContentLength();
+    }
+
+    @Override
+    protected InputStream getRawResponseInputStream() throws IOException {
+        return responseBody != null ? responseBody.asInputStream() : new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public Iterator<String> getResponseHeaderNames() throws IOException {
+        return responseHeaders.keySet().iterator();
+    }
+
+    @Override
+    public Iterator<String> getResponseHeaders(String name) throws IOException {
+        List<String> values = responseHeaders.get(name);
+        return values != null ? values.iterator() : Collections.<String>emptyList().iterator();
+    }
+
+    @Override
+    public void onClose() throws IOException {
+        try {
+            super.onClose();
+        } finally {
+            requestBody.forEach(DataBufferUtils::release);
+            requestBody.clear();
+            if (responseBody != null) {
+                DataBufferUtils.release(responseBody);
+                responseBody = null;
+            }
+        }
+    }
+
+    /**
+     * Writes into a list of fixed-size buffers.
+     */
+    private final class RequestOutputStream extends OutputStream {
+
+        private DataBuffer current;
+
+        @Override
+        public void write(int b) {
+            nextWritable().write((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                DataBuffer dataBuffer = nextWritable();
+                int count = Math.min(length, dataBuffer.writableByteCount());
+                dataBuffer.write(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        private DataBuffer nextWritable() {
+            if (current == null || current.writableByteCount() == 0) {
+                current = bufferFactory.allocateBuffer(REQUEST_BUFFER_SIZE);
+                requestBody.add(current);
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.support.WebUtils;
+import org.springframework.xml.xsd.XsdSchema;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 将 WSDL 中通过 import/include 引用的已发布 XSD 内联到 wsdl:types 中，生成单个文档
+ *
+ * @author shanhy
+ * @date 2026-10-18 13:48
+ */
+class WsdlBundleBuilder {
+
+    private static final String WSDL_NAMESPACE_URI = "http://schemas.xmlsoap.org/wsdl/";
+
+    private static final String IMPORT_ELEMENT = "import";
+
+    private static final String INCLUDE_ELEMENT = "include";
+
+    private static final String REDEFINE_ELEMENT = "redefine";
+
+    private static final String OVERRIDE_ELEMENT = "override";
+
+    private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Transformer transformer;
+
+    private final Map<String, XsdSchema> xsdSchemas;
+
+    private final Set<XsdSchema> inlinedSchemas = new LinkedHashSet<>();
+
+    /**
+     * @param transformer the transformer used to read schema sources
+     * @param xsdSchemas the published schemas, keyed by bean name
+     */
+    WsdlBundleBuilder(Transformer transformer, Map<String, XsdSchema> xsdSchemas) {
+        this.transformer = transformer;
+        this.xsdSchemas = xsdSchemas;
+    }
+
+    /**
+     * Inlines all published schemas referenced from the {@code wsdl:types} section of the given document.
+     *
+     * @param definitionDocument the WSDL document, modified in place
+     * @return the schemas that were inlined
+     */
+    Collection<XsdSchema> bundle(Document definitionDocument) throws TransformerException {
+        Element types = findTypes(definitionDocument.getDocumentElement());
+        if (types == null) {
+            return inlinedSchemas;
+        }
+        Set<String> importedSchemas = new HashSet<>();
+        Deque<Element> schemas = new ArrayDeque<>(childElements(types, XMLConstants.W3C_XML_SCHEMA_NS_URI, "schema"));
+        while (!schemas.isEmpty()) {
+            Element schema = schemas.poll();
+            Set<String> includedSchemas = new HashSet<>();
+            boolean changed;
+            do {
+                changed = false;
+                for (Element reference : childElements(schema, XMLConstants.W3C_XML_SCHEMA_NS_URI, null)) {
+                    String name = getReferencedSchemaName(reference);
+                    if (name == null) {
+                        continue;
+                    }
+                    changed = true;
+                    if (IMPORT_ELEMENT.equals(reference.getLocalName())) {
+                        reference.removeAttribute(SCHEMA_LOCATION_ATTRIBUTE);
+                        if (importedSchemas.add(name)) {
+                            Element imported = (Element) definitionDocument.importNode(readSchema(name), true);
+                            types.appendChild(imported);
+                            schemas.add(imported);
+                        }
+                    } else {
+                        schema.removeChild(reference);
+                        if (includedSchemas.add(name)) {
+                            include(schema, readSchema(name));
+                        }
+                    }
+                }
+            } while (changed);
+        }
+        return inlinedSchemas;
+    }
+
+    private String getReferencedSchemaName(Element reference) {
+        String localName = reference.getLocalName();
+        if (!IMPORT_ELEMENT.equals(localName) && !INCLUDE_ELEMENT.equals(localName)) {
+            return null;
+        }
+        String location = reference.getAttribute(SCHEMA_LOCATION_ATTRIBUTE);
+        if (!StringUtils.hasLength(location)) {
+            return null;
+        }
+        String name = WebUtils.extractFilenameFromUrlPath(location);
+        if (!xsdSchemas.containsKey(name)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Schema [" + location + "] is not published, leaving it unbundled");
+            }
+            return null;
+        }
+        return name;
+    }
+
+    private Element readSchema(String name) throws TransformerException {
+        XsdSchema xsdSchema = xsdSchemas.get(name);
+        inlinedSchemas.add(xsdSchema);
+        DOMResult domResult = new DOMResult();
+        transformer.transform(xsdSchema.getSource(), domResult);
+        Node node = domResult.getNode();
+        return node instanceof Document ? ((Document) node).getDocumentElement() : (Element) node;
+    }
+
+    /**
+     * Copies the content of an included schema into the including one, carrying the namespace declarations of the
+     * included schema along, as its QName-valued attributes depend on them. Its imports and includes go before the
+     * first declaration of the including schema, where the schema grammar requires them.
+     */
+    private void include(Element schema, Element includedSchema) {
+        Document document = schema.getOwnerDocument();
+        Element firstDeclaration = null;
+        for (Element child : childElements(schema, XMLConstants.W3C_XML_SCHEMA_NS_URI, null)) {
+            if (!isComposition(child) && !"annotation".equals(child.getLocalName())) {
+                firstDeclaration = child;
+                break;
+            }
+        }
+        NamedNodeMap attributes = includedSchema.getAttributes();
+        for (Node child = includedSchema.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            Element imported = (Element) document.importNode(child, true);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI()) &&
+                        !imported.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attribute.getLocalName())) {
+                    imported.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attribute.getName(),
+                            attribute.getValue());
+                }
+            }
+            if (isComposition(imported)) {
+                schema.insertBefore(imported, firstDeclaration);
+            } else {
+                schema.appendChild(imported);
+            }
+        }
+    }
+
+    private static boolean isComposition(Element element) {
+        String localName = element.getLocalName();
+        return XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(element.getNamespaceURI()) &&
+                (IMPORT_ELEMENT.equals(localName) || INCLUDE_ELEMENT.equals(localName) ||
+                        REDEFINE_ELEMENT.equals(localName) || OVERRIDE_ELEMENT.equals(localName));
+    }
+
+    private static Element findTypes(Element definitions) {
+        List<Element> types = childElements(definitions, WSDL_NAMESPACE_URI, "types");
+        return types.isEmpty() ? null : types.get(0);
+    }
+
+    private static List<Element> childElements(Element parent, String namespaceUri, String localName) {
+        List<Element> elements = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && namespaceUri.equals(child.getNamespaceURI()) &&
+                    (localName == null || localName.equals(child.getLocalName()))) {
+                elements.add((Element) child);
+            }
+        }
+        return elements;
+    }
+}
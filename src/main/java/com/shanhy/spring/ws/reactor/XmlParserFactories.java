@@ -0,0 +1,160 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import java.io.InputStream;
+
+/**
+ * 共享的 XML 解析器工厂注册表：工厂只查找、加固一次，非线程安全的 DocumentBuilder 和 Transformer 通过
+ * {@link BoundedObjectPool} 按次租用，租约可以跨线程归还，适用于请求在调度器之间切换线程的场景
+ *
+ * <p>All factories disallow DTDs and external entities.
+ *
+ * @author shanhy
+ * @date 2026-10-18 17:30
+ */
+public class XmlParserFactories {
+
+    /**
+     * Default maximum number of idle objects per pool.
+     */
+    public static final int DEFAULT_MAX_IDLE = 32;
+
+    private static final Log logger = LogFactory.getLog(XmlParserFactories.class);
+
+    private static final XmlParserFactories SHARED = new XmlParserFactories(DEFAULT_MAX_IDLE);
+
+    private final XMLInputFactory xmlInputFactory;
+
+    private final DocumentBuilderFactory documentBuilderFactory;
+
+    private final TransformerFactory transformerFactory;
+
+    private final BoundedObjectPool<DocumentBuilder> documentBuilderPool;
+
+    private final BoundedObjectPool<Transformer> transformerPool;
+
+    /**
+     * Creates a new registry.
+     *
+     * @param maxIdle the maximum number of idle objects per pool
+     */
+    public XmlParserFactories(int maxIdle) {
+        this.xmlInputFactory = createXmlInputFactory();
+        this.documentBuilderFactory = createDocumentBuilderFactory();
+        this.transformerFactory = createTransformerFactory();
+        this.documentBuilderPool = new BoundedObjectPool<>("DocumentBuilder", maxIdle, this::newDocumentBuilder,
+                DocumentBuilder::reset);
+        this.transformerPool = new BoundedObjectPool<>("Transformer", maxIdle, this::newTransformer,
+                Transformer::reset);
+    }
+
+    /**
+     * Returns the registry shared by default.
+     */
+    public static XmlParserFactories getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the {@link XMLInputFactory}, which is thread-safe once configured and must not be reconfigured.
+     */
+    public XMLInputFactory getXmlInputFactory() {
+        return xmlInputFactory;
+    }
+
+    /**
+     * Creates a {@link XMLStreamReader} for the given stream.
+     */
+    public XMLStreamReader createXmlStreamReader(InputStream inputStream) throws XMLStreamException {
+        return xmlInputFactory.createXMLStreamReader(inputStream);
+    }
+
+    /**
+     * Leases a namespace-aware {@link DocumentBuilder}. The lease must be closed after use.
+     */
+    public BoundedObjectPool.Lease<DocumentBuilder> leaseDocumentBuilder() {
+        return documentBuilderPool.lease();
+    }
+
+    /**
+     * Leases an identity {@link Transformer}. The lease must be closed after use.
+     */
+    public BoundedObjectPool.Lease<Transformer> leaseTransformer() {
+        return transformerPool.lease();
+    }
+
+    /**
+     * Returns the pool of {@link DocumentBuilder}s, for its statistics.
+     */
+    public BoundedObjectPool<DocumentBuilder> getDocumentBuilderPool() {
+        return documentBuilderPool;
+    }
+
+    /**
+     * Returns the pool of {@link Transformer}s, for its statistics.
+     */
+    public BoundedObjectPool<Transformer> getTransformerPool() {
+        return transformerPool;
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        try {
+            return documentBuilderFactory.newDocumentBuilder();
+        } catch (ParserConfigurationException ex) {
+            throw new IllegalStateException("Could not create DocumentBuilder", ex);
+        }
+    }
+
+    private Transformer newTransformer() {
+        try {
+            return transformerFactory.newTransformer();
+        } catch (TransformerConfigurationException ex) {
+            throw new IllegalStateException("Could not create Transformer", ex);
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return inputFactory;
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setExpandEntityReferences(false);
+        factory.setXIncludeAware(false);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        } catch (ParserConfigurationException ex) {
+            logger.warn("Could not harden DocumentBuilderFactory " + factory.getClass().getName(), ex);
+        }
+        return factory;
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        } catch (TransformerConfigurationException | IllegalArgumentException ex) {
+            logger.warn("Could not harden TransformerFactory " + factory.getClass().getName(), ex);
+        }
+        return factory;
+    }
+}
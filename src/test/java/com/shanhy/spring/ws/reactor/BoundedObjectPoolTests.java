@@ -0,0 +1,58 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证对象池的命中统计、空闲上限以及对未归还租约的泄漏检测
+ *
+ * @author shanhy
+ * @date 2026-10-19 11:40
+ */
+class BoundedObjectPoolTests {
+
+    @Test
+    void countsHitsAndMisses() {
+        BoundedObjectPool<StringBuilder> pool = new BoundedObjectPool<>("test", 1, StringBuilder::new,
+                builder -> builder.setLength(0));
+
+        BoundedObjectPool.Lease<StringBuilder> first = pool.lease();
+        BoundedObjectPool.Lease<StringBuilder> second = pool.lease();
+        assertEquals(2, pool.getOutstanding());
+        first.close();
+        second.close();
+        pool.lease().close();
+
+        assertEquals(1L, pool.getHits());
+        assertEquals(2L, pool.getMisses());
+        assertEquals(1L, pool.getDiscarded());
+        assertEquals(1, pool.getIdle());
+        assertEquals(0, pool.getOutstanding());
+    }
+
+    @Test
+    void detectsLeaseDroppedWithoutClose() throws Exception {
+        BoundedObjectPool<StringBuilder> pool = new BoundedObjectPool<>("test", 1, StringBuilder::new, null);
+        pool.setLeakDetection(true);
+        pool.lease().close();
+        leak(pool);
+
+        int leaks = 0;
+        for (int i = 0; i < 50 && leaks == 0; i++) {
+            System.gc();
+            Thread.sleep(20L);
+            leaks = pool.reportLeaks();
+        }
+
+        assertEquals(1, leaks);
+        assertEquals(1L, pool.getLeaked());
+        assertEquals(0, pool.getOutstanding());
+        assertTrue(pool.getIdle() <= 1);
+    }
+
+    private static void leak(BoundedObjectPool<StringBuilder> pool) {
+        pool.lease().get().append("never returned");
+    }
+}
@@ -0,0 +1,59 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证落盘目录默认按实例新建、销毁时删除，且只清理显式配置目录中的遗留文件，不触碰共享临时目录
+ *
+ * @author shanhy
+ * @date 2026-10-19 13:25
+ */
+class DiskSpoolTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void defaultDirectoryLeavesSharedTempDirectoryAlone() throws Exception {
+        Path temporaryDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        // possibly the spool file of another process
+        Path foreign = Files.createTempFile(temporaryDirectory, "soap-spool-", ".tmp");
+        DiskSpool diskSpool = new DiskSpool(0);
+        try {
+            diskSpool.afterPropertiesSet();
+
+            assertTrue(Files.exists(foreign));
+            assertTrue(Files.isDirectory(diskSpool.getDirectory()));
+            assertNotEquals(temporaryDirectory, diskSpool.getDirectory());
+        } finally {
+            diskSpool.destroy();
+            Files.deleteIfExists(foreign);
+        }
+
+        assertFalse(Files.exists(diskSpool.getDirectory()));
+    }
+
+    @Test
+    void configuredDirectoryIsCleaned() throws Exception {
+        Path stale = Files.createTempFile(directory, "soap-spool-", ".tmp");
+        Path other = Files.createTempFile(directory, "other-", ".tmp");
+        DiskSpool diskSpool = new DiskSpool(0);
+        diskSpool.setDirectory(directory);
+
+        diskSpool.afterPropertiesSet();
+        diskSpool.destroy();
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other));
+        assertTrue(Files.isDirectory(directory));
+    }
+}
@@ -0,0 +1,188 @@
+package com.shanhy.spring.ws.reactor;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.xml.transform.Transformer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对比各 DispatchMode 在真实事件循环上、以固定到达速率提交请求时的表现，包括端点阻塞 10ms、100ms 的情况
+ *
+ * <p>Run it with {@code mvn test -Pbenchmark -Dbenchmark.include=DispatchModeBenchmark}. Every operation offers one
+ * second worth of requests at a fixed rate to a Netty event-loop group, the way reactor-netty hands requests to the
+ * dispatcher, and completes once all of them have been answered. The score is how long that took: about one second
+ * while a mode keeps up with the rate, growing with the backlog when it does not. The p50 and p99 latencies, measured
+ * from when each request was due, are printed after every iteration. The virtual thread mode falls back to
+ * boundedElastic before JDK 21.
+ *
+ * @author shanhy
+ * @date 2026-10-19 01:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DispatchModeBenchmark {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<echoRequest xmlns=\"urn:echo\">Hello, reactor</echoRequest></SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final int EVENT_LOOP_THREADS = 2;
+
+    @Param({"EVENT_LOOP", "BOUNDED_ELASTIC", "VIRTUAL_THREAD"})
+    public DispatchMode dispatchMode;
+
+    /**
+     * How long the endpoint blocks, as a call to a database or a downstream service would.
+     */
+    @Param({"0", "10", "100"})
+    public int blockingMillis;
+
+    /**
+     * The number of requests offered per second.
+     */
+    @Param({"200"})
+    public int rate;
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private final byte[] request = ENVELOPE.getBytes(StandardCharsets.UTF_8);
+
+    private EventLoopGroup eventLoopGroup;
+
+    private ReactorWebServiceMessageReceiverHandlerAdapter adapter;
+
+    private WebServiceMessageReceiver endpoint;
+
+    private AtomicLongArray latencies;
+
+    @Setup
+    public void setUp() throws Exception {
+        eventLoopGroup = new NioEventLoopGroup(EVENT_LOOP_THREADS);
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
+        adapter.setMessageFactory(messageFactory);
+        adapter.setDispatchMode(dispatchMode);
+        adapter.afterPropertiesSet();
+        endpoint = messageContext -> {
+            if (blockingMillis > 0) {
+                Thread.sleep(blockingMillis);
+            }
+            try (BoundedObjectPool.Lease<Transformer> transformerLease =
+                         XmlParserFactories.getShared().leaseTransformer()) {
+                transformerLease.get().transform(messageContext.getRequest().getPayloadSource(),
+                        messageContext.getResponse().getPayloadResult());
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportLatencies() {
+        if (latencies == null) {
+            return;
+        }
+        long[] sorted = new long[latencies.length()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%n%s, %d ms endpoint: p50 %.1f ms, p99 %.1f ms%n", dispatchMode,
+                blockingMillis, percentile(sorted, 0.5) / 1_000_000d, percentile(sorted, 0.99) / 1_000_000d);
+    }
+
+    @Benchmark
+    public void offerFixedRate() throws Exception {
+        int requests = rate;
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        AtomicLongArray operationLatencies = new AtomicLongArray(requests);
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        Flux.interval(Duration.ZERO, Duration.ofNanos(periodNanos), Schedulers.single())
+                .take(requests)
+                .subscribe(tick -> {
+                    int index = tick.intValue();
+                    long due = start + index * periodNanos;
+                    eventLoopGroup.next().execute(() -> dispatch()
+                            .subscribe(null,
+                                    ex -> {
+                                        failures.incrementAndGet();
+                                        done.countDown();
+                                    },
+                                    () -> {
+                                        operationLatencies.set(index, System.nanoTime() - due);
+                                        done.countDown();
+                                    }));
+                });
+        if (!done.await(5, TimeUnit.MINUTES) || failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " requests failed or did not complete");
+        }
+        latencies = operationLatencies;
+    }
+
+    /**
+     * Hands one request to the adapter, on the calling event loop.
+     */
+    private Mono<Void> dispatch() {
+        MockServerHttpRequest httpRequest = MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .contentLength(request.length)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(Mono.fromSupplier(() -> bufferFactory.wrap(request)));
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(DataBufferUtils::release)
+                .then());
+        try {
+            return adapter.handle(httpRequest, response, endpoint);
+        } catch (Exception ex) {
+            return Mono.error(ex);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.max(0, Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1))];
+    }
+}
@@ -0,0 +1,41 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 验证虚拟线程调度器只创建一次，被释放后才重新创建
+ *
+ * @author shanhy
+ * @date 2026-10-19 01:05
+ */
+class DispatchModeTests {
+
+    @Test
+    void eventLoopIsNotOffloaded() {
+        assertNull(DispatchMode.EVENT_LOOP.createScheduler());
+    }
+
+    @Test
+    void virtualThreadSchedulerIsShared() {
+        assertSame(DispatchMode.VIRTUAL_THREAD.createScheduler(), DispatchMode.VIRTUAL_THREAD.createScheduler());
+    }
+
+    @Test
+    void virtualThreadSchedulerIsRecreatedOnceDisposed() {
+        assumeTrue(DispatchMode.isVirtualThreadAvailable());
+        Scheduler scheduler = DispatchMode.VIRTUAL_THREAD.createScheduler();
+
+        scheduler.dispose();
+        Scheduler recreated = DispatchMode.VIRTUAL_THREAD.createScheduler();
+
+        assertNotSame(scheduler, recreated);
+        assertFalse(recreated.isDisposed());
+    }
+}
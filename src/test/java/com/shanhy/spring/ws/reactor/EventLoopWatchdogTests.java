@@ -0,0 +1,107 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证事件循环看门狗上报超时的处理段、忽略阻塞线程、恢复嵌套段的操作名，并覆盖订阅时执行的延迟工作
+ *
+ * @author shanhy
+ * @date 2026-10-19 12:50
+ */
+class EventLoopWatchdogTests {
+
+    private final Queue<EventLoopWatchdog.Stall> stalls = new ConcurrentLinkedQueue<>();
+
+    private EventLoopWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        watchdog = new EventLoopWatchdog();
+        watchdog.setStallThreshold(Duration.ofMillis(20));
+        watchdog.setCheckInterval(Duration.ofMillis(5));
+        watchdog.setNonBlockingThread(thread -> true);
+        watchdog.setReporter(stalls::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.destroy();
+    }
+
+    @Test
+    void reportsStalledSectionOnce() throws Exception {
+        try (EventLoopWatchdog.Section section = watchdog.enter("POST /ws")) {
+            Thread.sleep(200L);
+        }
+
+        assertEquals(1L, watchdog.getStalls());
+        EventLoopWatchdog.Stall stall = stalls.poll();
+        assertEquals("POST /ws", stall.getOperation());
+        assertEquals(Thread.currentThread().getName(), stall.getThreadName());
+        assertTrue(stall.getDurationNanos() >= Duration.ofMillis(20).toNanos());
+        assertTrue(stall.getStackTrace().length > 0);
+    }
+
+    @Test
+    void ignoresBlockingThreads() throws Exception {
+        watchdog.setNonBlockingThread(thread -> false);
+
+        try (EventLoopWatchdog.Section section = watchdog.enter("POST /ws")) {
+            Thread.sleep(100L);
+        }
+
+        assertEquals(0L, watchdog.getStalls());
+    }
+
+    @Test
+    void nestedSectionRestoresOperation() {
+        try (EventLoopWatchdog.Section outer = watchdog.enter("GET /ws/echo.wsdl")) {
+            try (EventLoopWatchdog.Section inner = watchdog.enter("POST /ws")) {
+                assertEquals("POST /ws", EventLoopWatchdog.currentOperation());
+            }
+            assertEquals("GET /ws/echo.wsdl", EventLoopWatchdog.currentOperation());
+        }
+
+        assertNull(EventLoopWatchdog.currentOperation());
+    }
+
+    @Test
+    void watchCoversDeferredWork() {
+        AtomicReference<String> operation = new AtomicReference<>();
+        Mono<Void> deferred = Mono.defer(() -> {
+            // as Mono.using renders a WSDL on first use, once the response is subscribed
+            operation.set(EventLoopWatchdog.currentOperation());
+            sleep(200L);
+            return Mono.empty();
+        });
+
+        Mono<Void> watched = watchdog.watch("GET /ws/echo.wsdl", deferred);
+        assertEquals(0L, watchdog.getStalls());
+        watched.block(Duration.ofSeconds(5));
+
+        assertEquals("GET /ws/echo.wsdl", operation.get());
+        assertEquals(1L, watchdog.getStalls());
+        assertEquals("GET /ws/echo.wsdl", stalls.poll().getOperation());
+        assertNull(EventLoopWatchdog.currentOperation());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.publisher.Mono;
+
+import javax.xml.transform.TransformerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比 Fast Infoset 与文本 XML 请求经接收适配器处理的吞吐：FI 请求由 SAAJ 直接解析，响应直接序列化为 FI
+ *
+ * <p>Run it with {@code mvn test -Pbenchmark -Dbenchmark.include=FastInfosetBenchmark}.
+ *
+ * @author shanhy
+ * @date 2026-10-18 23:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastInfosetBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final WebServiceMessageReceiver ECHO = messageContext -> TransformerFactory.newInstance()
+            .newTransformer()
+            .transform(messageContext.getRequest().getPayloadSource(), messageContext.getResponse().getPayloadResult());
+
+    /**
+     * The number of repeated elements in the request payload.
+     */
+    @Param({"10", "1000"})
+    public int items;
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private ReactorWebServiceMessageReceiverHandlerAdapter adapter;
+
+    private byte[] xmlRequest;
+
+    private byte[] fastInfosetRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
+        adapter.setMessageFactory(messageFactory);
+        adapter.setFastInfoset(true);
+        adapter.afterPropertiesSet();
+
+        StringBuilder envelope = new StringBuilder("<SOAP-ENV:Envelope " +
+                "xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+                "<echoRequest xmlns=\"urn:echo\">");
+        for (int i = 0; i < items; i++) {
+            envelope.append("<item id=\"").append(i).append("\"><name>Item ").append(i)
+                    .append("</name><price>").append(i * 3).append(".99</price></item>");
+        }
+        envelope.append("</echoRequest></SOAP-ENV:Body></SOAP-ENV:Envelope>");
+        xmlRequest = envelope.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        FastInfosetCodec.encode(new ByteArrayInputStream(xmlRequest), encoded,
+                TransformerFactory.newInstance().newTransformer());
+        fastInfosetRequest = encoded.toByteArray();
+    }
+
+    @Benchmark
+    public long textXml() throws Exception {
+        return exchange(xmlRequest, MediaType.TEXT_XML, MediaType.TEXT_XML);
+    }
+
+    @Benchmark
+    public long fastInfoset() throws Exception {
+        return exchange(fastInfosetRequest, FastInfosetCodec.APPLICATION_FASTINFOSET,
+                FastInfosetCodec.APPLICATION_FASTINFOSET);
+    }
+
+    /**
+     * Dispatches one request and returns the size of the response body.
+     */
+    private long exchange(byte[] body, MediaType contentType, MediaType accept) throws Exception {
+        MockServerHttpRequest request = MockServerHttpRequest.post("/ws")
+                .contentType(contentType)
+                .header(HttpHeaders.ACCEPT, accept.toString())
+                .contentLength(body.length)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(Mono.fromSupplier(() -> bufferFactory.wrap(body)));
+        AtomicLong size = new AtomicLong();
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(responseBody -> responseBody
+                .doOnNext(dataBuffer -> {
+                    size.addAndGet(dataBuffer.readableByteCount());
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        adapter.handle(request, response, ECHO).block(TIMEOUT);
+        return size.get();
+    }
+}
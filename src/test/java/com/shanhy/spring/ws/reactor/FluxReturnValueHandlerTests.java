@@ -0,0 +1,184 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlValue;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证端点返回的 Flux 在写出响应时才逐个序列化到包装元素中，且响应没有 Content-Length；
+ * Flux 在信封头部写出后出错时响应被中止，且不泄漏缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-19 14:50
+ */
+class FluxReturnValueHandlerTests {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<listRequest xmlns=\"urn:echo\"/></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder responseBody = new StringBuilder();
+
+    private FluxReturnValueHandler returnValueHandler;
+
+    private ReactorWebServiceMessageReceiverHandlerAdapter adapter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+        marshaller.setClassesToBeBound(Item.class);
+        marshaller.afterPropertiesSet();
+        returnValueHandler = new FluxReturnValueHandler(marshaller);
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
+        adapter.setMessageFactory(messageFactory);
+        adapter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void assertNoLeaks() {
+        bufferFactory.assertNoLeaks();
+    }
+
+    @Test
+    void supportsFluxReturnType() throws Exception {
+        assertTrue(returnValueHandler.supportsReturnType(returnType()));
+        assertFalse(returnValueHandler.supportsReturnType(
+                new MethodParameter(Object.class.getMethod("toString"), -1)));
+    }
+
+    @Test
+    void itemsAreStreamedInOrder() throws Exception {
+        AtomicInteger marshalled = new AtomicInteger();
+        Flux<Item> items = Flux.range(0, 100)
+                .map(i -> new Item("item-" + i))
+                .doOnNext(item -> marshalled.incrementAndGet());
+        AtomicInteger marshalledByEndpoint = new AtomicInteger(-1);
+        WebServiceMessageReceiver endpoint = messageContext -> {
+            returnValueHandler.handleReturnValue(messageContext, returnType(), items);
+            marshalledByEndpoint.set(marshalled.get());
+        };
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(), response, endpoint).block(TIMEOUT);
+
+        String body = responseBody.toString();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(-1L, response.getHeaders().getContentLength());
+        // nothing was marshalled while the endpoint ran, only once the response was written
+        assertEquals(0, marshalledByEndpoint.get());
+        assertEquals(100, marshalled.get());
+        assertFalse(body.contains("stream-"), body);
+        int wrapper = body.indexOf("listRequestResponse");
+        assertTrue(wrapper > 0, body);
+        int previous = wrapper;
+        for (int i = 0; i < 100; i++) {
+            int index = body.indexOf(">item-" + i + "<");
+            assertTrue(index > previous, "item-" + i + " out of order");
+            previous = index;
+        }
+        assertTrue(body.endsWith("</SOAP-ENV:Envelope>"), body);
+    }
+
+    @Test
+    void errorAfterHeadAbortsResponse() throws Exception {
+        Flux<Item> items = Flux.concat(Flux.just(new Item("item-0")),
+                Flux.<Item>error(new IllegalStateException("Backend unavailable")));
+        WebServiceMessageReceiver endpoint = messageContext ->
+                returnValueHandler.handleReturnValue(messageContext, returnType(), items);
+
+        Throwable error = adapter.handle(post(), newResponse(), endpoint)
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block(TIMEOUT);
+
+        assertNotNull(error);
+        assertEquals("Backend unavailable", error.getMessage());
+        assertTrue(responseBody.toString().contains(">item-0<"));
+    }
+
+    private static MethodParameter returnType() throws NoSuchMethodException {
+        return new MethodParameter(FluxReturnValueHandlerTests.class.getDeclaredMethod("list"), -1);
+    }
+
+    /**
+     * Stands in for an endpoint method returning a {@link Flux}.
+     */
+    private static Flux<Item> list() {
+        return Flux.empty();
+    }
+
+    /**
+     * Creates a response whose body is consumed, and released, as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(dataBuffer -> {
+                    responseBody.append(dataBuffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        return response;
+    }
+
+    private MockServerHttpRequest post() {
+        byte[] bytes = ENVELOPE.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = Mono.fromSupplier(() -> {
+            DataBuffer dataBuffer = bufferFactory.allocateBuffer(bytes.length);
+            dataBuffer.write(bytes);
+            return dataBuffer;
+        }).flux();
+        return MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .contentLength(bytes.length)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(body);
+    }
+
+    @XmlRootElement(name = "item", namespace = "urn:echo")
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Item {
+
+        @XmlValue
+        private String value;
+
+        public Item() {
+        }
+
+        Item(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证幂等存储的重放、指纹校验、释放，以及在处理中的请求堆积时条目数量仍有硬上限
+ *
+ * @author shanhy
+ * @date 2026-10-19 12:20
+ */
+class IdempotencyStoreTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final IdempotencyStore store = new IdempotencyStore();
+
+    @Test
+    void replaysCompletedResponse() {
+        IdempotencyStore.StoredResponse response = new IdempotencyStore.StoredResponse(200, new HttpHeaders(),
+                new byte[0]);
+        assertNull(store.claim("key", "fingerprint"));
+        Mono<IdempotencyStore.StoredResponse> waiting = store.claim("key", "fingerprint");
+
+        store.complete("key", response);
+
+        StepVerifier.create(waiting).expectNext(response).expectComplete().verify(TIMEOUT);
+        StepVerifier.create(store.claim("key", "fingerprint")).expectNext(response).expectComplete().verify(TIMEOUT);
+        assertEquals(2L, store.getReplays());
+    }
+
+    @Test
+    void refusesDifferentFingerprint() {
+        assertNull(store.claim("key", "fingerprint"));
+
+        StepVerifier.create(store.claim("key", "other"))
+                .expectError(IdempotencyStore.FingerprintMismatchException.class)
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void releaseLetsWaitersClaimAgain() {
+        assertNull(store.claim("key", "fingerprint"));
+        Mono<IdempotencyStore.StoredResponse> waiting = store.claim("key", "fingerprint");
+
+        store.release("key");
+
+        StepVerifier.create(waiting).expectComplete().verify(TIMEOUT);
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    void expiredEntryIsClaimedAgain() throws Exception {
+        store.setTimeToLive(Duration.ZERO);
+        assertNull(store.claim("key", "fingerprint"));
+        store.complete("key", new IdempotencyStore.StoredResponse(200, new HttpHeaders(), new byte[0]));
+        Thread.sleep(5L);
+
+        assertNull(store.claim("key", "other"));
+    }
+
+    @Test
+    void boundsEntriesInProgress() {
+        store.setMaxEntries(32);
+        assertNull(store.claim("first", "fingerprint"));
+        Mono<IdempotencyStore.StoredResponse> waiting = store.claim("first", "fingerprint");
+
+        for (int i = 0; i < 10_000; i++) {
+            store.claim("key-" + i, "fingerprint");
+        }
+
+        assertTrue(store.size() <= 32, store.size() + " entries");
+        // the oldest request in progress was released to make room
+        StepVerifier.create(waiting).expectComplete().verify(TIMEOUT);
+    }
+
+    @Test
+    void boundsCompletedEntries() {
+        store.setMaxEntries(32);
+        IdempotencyStore.StoredResponse response = new IdempotencyStore.StoredResponse(200, new HttpHeaders(),
+                new byte[0]);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertNull(store.claim("key-" + i, "fingerprint"));
+            store.complete("key-" + i, response);
+        }
+
+        assertTrue(store.size() <= 32, store.size() + " entries");
+        // the most recent response is still replayed
+        StepVerifier.create(store.claim("key-9999", "fingerprint")).expectNext(response).expectComplete()
+                .verify(TIMEOUT);
+    }
+}
@@ -0,0 +1,144 @@
+package com.shanhy.spring.ws.reactor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 测试用的泄漏跟踪缓冲区工厂：记录分配的每个 Netty 缓冲区，并以 PARANOID 级别运行 Netty 的泄漏检测器
+ *
+ * <p>Buffers still referenced when {@link #assertNoLeaks()} is called are reported, as are buffers allocated elsewhere
+ * that Netty's detector found unreleased after they were garbage collected.
+ *
+ * @author shanhy
+ * @date 2026-10-18 21:10
+ */
+class LeakTrackingDataBufferFactory implements DataBufferFactory {
+
+    private static final Queue<String> detectedLeaks = new ConcurrentLinkedQueue<>();
+
+    static {
+        // must be installed before the first ByteBuf class is initialized
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new ResourceLeakDetectorFactory() {
+
+            @Override
+            @SuppressWarnings("deprecation")
+            public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval,
+                                                                       long maxActive) {
+                return new ResourceLeakDetector<T>(resource, samplingInterval) {
+
+                    @Override
+                    protected void reportTracedLeak(String resourceType, String records) {
+                        detectedLeaks.add(resourceType + records);
+                        super.reportTracedLeak(resourceType, records);
+                    }
+
+                    @Override
+                    protected void reportUntracedLeak(String resourceType) {
+                        detectedLeaks.add(resourceType);
+                        super.reportUntracedLeak(resourceType);
+                    }
+                };
+            }
+        });
+    }
+
+    private final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+    private final NettyDataBufferFactory delegate = new NettyDataBufferFactory(allocator);
+
+    private final Queue<NettyDataBuffer> allocated = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public DataBuffer allocateBuffer() {
+        return track(delegate.allocateBuffer());
+    }
+
+    @Override
+    public DataBuffer allocateBuffer(int initialCapacity) {
+        return track(delegate.allocateBuffer(initialCapacity));
+    }
+
+    @Override
+    public DataBuffer wrap(ByteBuffer byteBuffer) {
+        return track(delegate.wrap(byteBuffer));
+    }
+
+    @Override
+    public DataBuffer wrap(byte[] bytes) {
+        return track(delegate.wrap(bytes));
+    }
+
+    @Override
+    public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+        return track(delegate.join(dataBuffers));
+    }
+
+    /**
+     * Fails if a buffer allocated by this factory is still referenced after a second, or if Netty detected a leak.
+     */
+    void assertNoLeaks() {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        List<NettyDataBuffer> unreleased = unreleased();
+        // buffers may be released on another thread, shortly after the response completed
+        while (!unreleased.isEmpty() && System.nanoTime() < deadline) {
+            sleep();
+            unreleased = unreleased();
+        }
+        if (!unreleased.isEmpty()) {
+            fail(unreleased.size() + " buffers were not released: " + unreleased);
+        }
+        // the detector reports collected, unreleased buffers on the next allocation
+        System.gc();
+        sleep();
+        for (int i = 0; i < 8; i++) {
+            ByteBuf byteBuf = delegate.getByteBufAllocator().buffer(1);
+            byteBuf.release();
+        }
+        if (!detectedLeaks.isEmpty()) {
+            String leaks = String.join("\n", detectedLeaks);
+            detectedLeaks.clear();
+            fail("Netty detected leaks:\n" + leaks);
+        }
+    }
+
+    /**
+     * Returns the direct memory held by the pool of this factory, in chunks, including cached free buffers.
+     */
+    long getUsedDirectMemory() {
+        return allocator.metric().usedDirectMemory();
+    }
+
+    private DataBuffer track(DataBuffer dataBuffer) {
+        allocated.add((NettyDataBuffer) dataBuffer);
+        return dataBuffer;
+    }
+
+    private List<NettyDataBuffer> unreleased() {
+        allocated.removeIf(dataBuffer -> dataBuffer.getNativeBuffer().refCnt() == 0);
+        return new ArrayList<>(allocated);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
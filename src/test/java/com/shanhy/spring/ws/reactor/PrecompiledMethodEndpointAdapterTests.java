@@ -0,0 +1,214 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.server.endpoint.annotation.RequestPayload;
+import org.springframework.ws.server.endpoint.annotation.ResponsePayload;
+import org.springframework.ws.server.endpoint.mapping.PayloadRootAnnotationMethodEndpointMapping;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证预编译的端点与运行时映射得到的 MethodEndpoint 一致，并覆盖返回值、void 方法、异常透传以及 JDK 代理的回退
+ *
+ * @author shanhy
+ * @date 2026-10-19 14:10
+ */
+class PrecompiledMethodEndpointAdapterTests {
+
+    private final SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+
+    private final RecordingMethodEndpointAdapter delegate = new RecordingMethodEndpointAdapter();
+
+    private GenericApplicationContext applicationContext;
+
+    private PayloadRootAnnotationMethodEndpointMapping endpointMapping;
+
+    private PrecompiledMethodEndpointAdapter adapter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        messageFactory.afterPropertiesSet();
+        delegate.afterPropertiesSet();
+        applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("echoEndpoint", EchoEndpoint.class);
+        applicationContext.refresh();
+        endpointMapping = new PayloadRootAnnotationMethodEndpointMapping();
+        endpointMapping.setApplicationContext(applicationContext);
+        adapter = new PrecompiledMethodEndpointAdapter(delegate);
+        adapter.setApplicationContext(applicationContext);
+        adapter.afterPropertiesSet();
+        adapter.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationContext.close();
+    }
+
+    @Test
+    void precompiledEndpointsMatchMappedEndpoints() throws Exception {
+        assertEquals(3, adapter.getCompiledEndpointCount());
+
+        for (String payloadRoot : new String[]{"echoRequest", "notifyRequest", "failRequest"}) {
+            assertTrue(adapter.supports(getEndpoint(newMessageContext(payloadRoot))), payloadRoot);
+        }
+
+        // the mapped endpoints were found precompiled, rather than compiled on first use
+        assertEquals(3, adapter.getCompiledEndpointCount());
+    }
+
+    @Test
+    void returnValueIsHandled() throws Exception {
+        MessageContext messageContext = newMessageContext("echoRequest");
+
+        adapter.invoke(messageContext, getEndpoint(messageContext));
+
+        assertTrue(messageContext.hasResponse());
+        assertTrue(toString(messageContext.getResponse().getPayloadSource()).contains("Hello, reactor"));
+        assertEquals(0, delegate.invocations.get());
+    }
+
+    @Test
+    void voidMethodHasNoResponse() throws Exception {
+        MessageContext messageContext = newMessageContext("notifyRequest");
+
+        adapter.invoke(messageContext, getEndpoint(messageContext));
+
+        assertFalse(messageContext.hasResponse());
+        assertEquals(1, applicationContext.getBean(EchoEndpoint.class).notifications.get());
+    }
+
+    @Test
+    void exceptionIsPropagatedUnwrapped() throws Exception {
+        MessageContext messageContext = newMessageContext("failRequest");
+        Object endpoint = getEndpoint(messageContext);
+
+        IOException ex = assertThrows(IOException.class, () -> adapter.invoke(messageContext, endpoint));
+
+        assertEquals("Backend unavailable", ex.getMessage());
+    }
+
+    @Test
+    void interfaceMethodOfJdkProxyIsCompiled() throws Exception {
+        Greeter greeter = newGreeterProxy();
+        MethodEndpoint methodEndpoint = new MethodEndpoint(greeter, Greeter.class.getMethod("greet", Source.class));
+        MessageContext messageContext = newMessageContext("echoRequest");
+
+        assertTrue(adapter.supports(methodEndpoint));
+        adapter.invoke(messageContext, methodEndpoint);
+
+        assertTrue(toString(messageContext.getResponse().getPayloadSource()).contains("Hello, reactor"));
+        assertEquals(0, delegate.invocations.get());
+    }
+
+    @Test
+    void targetClassMethodOfJdkProxyIsDelegated() throws Exception {
+        Greeter greeter = newGreeterProxy();
+        MethodEndpoint methodEndpoint = new MethodEndpoint(greeter, EchoGreeter.class.getMethod("greet", Source.class));
+        MessageContext messageContext = newMessageContext("echoRequest");
+
+        assertTrue(adapter.supports(methodEndpoint));
+        // the proxy does not implement the target class, so the delegate fails as the stock adapter would
+        assertThrows(IllegalArgumentException.class, () -> adapter.invoke(messageContext, methodEndpoint));
+
+        assertEquals(1, delegate.invocations.get());
+    }
+
+    private Object getEndpoint(MessageContext messageContext) throws Exception {
+        return endpointMapping.getEndpoint(messageContext).getEndpoint();
+    }
+
+    private MessageContext newMessageContext(String payloadRoot) throws IOException {
+        String envelope = "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<SOAP-ENV:Body><" + payloadRoot + " xmlns=\"urn:echo\">Hello, reactor</" + payloadRoot + ">" +
+                "</SOAP-ENV:Body></SOAP-ENV:Envelope>";
+        return new DefaultMessageContext(messageFactory.createWebServiceMessage(
+                new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8))), messageFactory);
+    }
+
+    private static Greeter newGreeterProxy() {
+        Greeter target = new EchoGreeter();
+        return (Greeter) Proxy.newProxyInstance(Greeter.class.getClassLoader(), new Class<?>[]{Greeter.class},
+                (proxy, method, args) -> method.invoke(target, args));
+    }
+
+    private static String toString(Source source) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(writer));
+        return writer.toString();
+    }
+
+    @Endpoint
+    static class EchoEndpoint {
+
+        private final AtomicInteger notifications = new AtomicInteger();
+
+        @PayloadRoot(namespace = "urn:echo", localPart = "echoRequest")
+        @ResponsePayload
+        public Source echo(@RequestPayload Source request) {
+            return request;
+        }
+
+        @PayloadRoot(namespace = "urn:echo", localPart = "notifyRequest")
+        public void record(@RequestPayload Source request) {
+            notifications.incrementAndGet();
+        }
+
+        @PayloadRoot(namespace = "urn:echo", localPart = "failRequest")
+        public void fail(@RequestPayload Source request) throws IOException {
+            throw new IOException("Backend unavailable");
+        }
+    }
+
+    interface Greeter {
+
+        @ResponsePayload
+        Source greet(@RequestPayload Source request);
+    }
+
+    static class EchoGreeter implements Greeter {
+
+        @Override
+        @ResponsePayload
+        public Source greet(@RequestPayload Source request) {
+            return request;
+        }
+    }
+
+    /**
+     * Counts the endpoints the precompiled adapter falls back to.
+     */
+    static class RecordingMethodEndpointAdapter extends DefaultMethodEndpointAdapter {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        protected void invokeInternal(MessageContext messageContext, MethodEndpoint methodEndpoint) throws Exception {
+            invocations.incrementAndGet();
+            super.invokeInternal(messageContext, methodEndpoint);
+        }
+    }
+}
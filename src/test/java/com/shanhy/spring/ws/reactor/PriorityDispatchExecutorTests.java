@@ -0,0 +1,112 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证优先级分发执行器的严格优先级顺序、按权重交替服务，以及等待过久的低优先级任务被提前执行
+ *
+ * <p>Each test occupies the single worker until all tasks are queued, so that the order they are taken in is
+ * decided by the executor alone.
+ *
+ * @author shanhy
+ * @date 2026-10-19 14:20
+ */
+class PriorityDispatchExecutorTests {
+
+    private final PriorityDispatchExecutor executor = new PriorityDispatchExecutor(3, 1);
+
+    private final List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void servesStrictlyInOrder() throws Exception {
+        CountDownLatch blocked = blockWorker();
+        execute(2, 1, 0, 2, 1, 0);
+
+        blocked.countDown();
+
+        assertEquals(Arrays.asList(0, 0, 1, 1, 2, 2), awaitStarted(6));
+    }
+
+    @Test
+    void servesInProportionToWeights() throws Exception {
+        executor.setWeights(3, 1, 1);
+        CountDownLatch blocked = blockWorker();
+        for (int i = 0; i < 8; i++) {
+            execute(0, 1);
+        }
+
+        blocked.countDown();
+
+        List<Integer> order = awaitStarted(16);
+        // the slot of the idle priority 2 passes on, so priority 1 gets one task in four while priority 0 waits
+        assertEquals(2, Collections.frequency(order.subList(0, 8), 1), order.toString());
+        assertEquals(8L, executor.getStarted(1));
+    }
+
+    @Test
+    void agedTaskIsServedFirst() throws Exception {
+        executor.setAgingThreshold(Duration.ofMillis(50));
+        CountDownLatch blocked = blockWorker();
+        execute(2);
+        Thread.sleep(100L);
+        execute(0);
+
+        blocked.countDown();
+
+        assertEquals(Arrays.asList(2, 0), awaitStarted(2));
+        assertEquals(1L, executor.getAged(2));
+        assertEquals(0L, executor.getAged(0));
+        assertTrue(executor.getMaxWaitMillis(2) >= 50L);
+    }
+
+    /**
+     * Occupies the single worker until the returned latch is counted down.
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(0, () -> {
+            running.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return blocked;
+    }
+
+    private void execute(int... priorities) {
+        for (int priority : priorities) {
+            executor.execute(priority, () -> started.add(priority));
+        }
+    }
+
+    private List<Integer> awaitStarted(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (started.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5L);
+        }
+        synchronized (started) {
+            return new ArrayList<>(started);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证限流器对跟踪的客户端数量有硬上限，超出上限的客户端共享溢出状态
+ *
+ * @author shanhy
+ * @date 2026-10-19 00:30
+ */
+class RateLimiterTests {
+
+    @Test
+    void limitsEachClient() {
+        RateLimiter rateLimiter = new RateLimiter(1, 2);
+
+        assertEquals(0L, rateLimiter.tryAcquire("a"));
+        assertEquals(0L, rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+        assertEquals(0L, rateLimiter.tryAcquire("b"));
+    }
+
+    @Test
+    void capsTrackedClients() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1);
+        rateLimiter.setMaxClients(32);
+
+        int permitted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (rateLimiter.tryAcquire("client-" + i) == 0L) {
+                permitted++;
+            }
+        }
+
+        // every segment holds two active clients, and one more request passes through its overflow entry
+        assertTrue(rateLimiter.getTrackedClients() <= 32, rateLimiter.getTrackedClients() + " clients tracked");
+        assertTrue(permitted <= 32 + 16, permitted + " requests permitted");
+    }
+}
@@ -0,0 +1,206 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.TransformerFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证响应式端点拦截器的执行顺序、拒绝请求时的默认 403、后置拦截对状态和响应头的修改，以及失败时释放响应缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-19 14:40
+ */
+class ReactiveEndpointInterceptorTests {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<echoRequest xmlns=\"urn:echo\">Hello, reactor</echoRequest></SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder responseBody = new StringBuilder();
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger dispatched = new AtomicInteger();
+
+    private final WebServiceMessageReceiver echo = messageContext -> {
+        dispatched.incrementAndGet();
+        TransformerFactory.newInstance().newTransformer().transform(messageContext.getRequest().getPayloadSource(),
+                messageContext.getResponse().getPayloadResult());
+    };
+
+    private ReactorWebServiceMessageReceiverHandlerAdapter adapter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
+        adapter.setMessageFactory(messageFactory);
+        adapter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void assertNoLeaks() {
+        bufferFactory.assertNoLeaks();
+    }
+
+    @Test
+    void interceptorsRunAroundDispatch() throws Exception {
+        adapter.setReactiveInterceptors(Arrays.asList(new RecordingInterceptor("first", true),
+                new RecordingInterceptor("second", true)));
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(), response, echo).block(TIMEOUT);
+
+        assertEquals(Arrays.asList("first.preHandle {urn:echo}echoRequest", "second.preHandle {urn:echo}echoRequest",
+                "second.postHandle", "first.postHandle"), calls);
+        assertEquals(1, dispatched.get());
+        assertEquals(Arrays.asList("second", "first"), response.getHeaders().get("X-Intercepted"));
+        assertTrue(responseBody.toString().contains("Hello, reactor"));
+    }
+
+    @Test
+    void refusedRequestIsForbidden() throws Exception {
+        adapter.setReactiveInterceptors(Arrays.asList(new RecordingInterceptor("first", false),
+                new RecordingInterceptor("second", true)));
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(), response, echo).block(TIMEOUT);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertEquals(Collections.singletonList("first.preHandle {urn:echo}echoRequest"), calls);
+        assertEquals(0, dispatched.get());
+        assertEquals("", responseBody.toString());
+    }
+
+    @Test
+    void refusingInterceptorMaySetStatus() throws Exception {
+        adapter.setReactiveInterceptors(Arrays.asList(new RecordingInterceptor("first", true) {
+            @Override
+            public Mono<Boolean> preHandle(ServerHttpRequest request, ServerHttpResponse response,
+                                           Supplier<SoapEnvelopeSniffer.Result> envelope) {
+                response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                return Mono.just(Boolean.FALSE);
+            }
+        }));
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(), response, echo).block(TIMEOUT);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals(0, dispatched.get());
+    }
+
+    @Test
+    void failedPostHandleReleasesResponse() throws Exception {
+        adapter.setReactiveInterceptors(Arrays.asList(new RecordingInterceptor("first", true) {
+            @Override
+            public Mono<Void> postHandle(ServerHttpRequest request, ServerHttpResponse response,
+                                         Supplier<SoapEnvelopeSniffer.Result> envelope) {
+                return Mono.error(new IllegalStateException("Audit unavailable"));
+            }
+        }));
+
+        Mono<Void> handled = adapter.handle(post(), newResponse(), echo);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> handled.block(TIMEOUT));
+        assertEquals("Audit unavailable", ex.getMessage());
+        assertEquals(1, dispatched.get());
+        assertEquals("", responseBody.toString());
+    }
+
+    /**
+     * Creates a response whose body is consumed, and released, as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(dataBuffer -> {
+                    responseBody.append(dataBuffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        return response;
+    }
+
+    private MockServerHttpRequest post() {
+        byte[] bytes = ENVELOPE.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = Mono.fromSupplier(() -> {
+            DataBuffer dataBuffer = bufferFactory.allocateBuffer(bytes.length);
+            dataBuffer.write(bytes);
+            return dataBuffer;
+        }).flux();
+        return MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .contentLength(bytes.length)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(body);
+    }
+
+    /**
+     * Records its calls, proceeds as configured, and marks the response in {@code postHandle}.
+     */
+    private class RecordingInterceptor implements ReactiveEndpointInterceptor {
+
+        private final String name;
+
+        private final boolean proceed;
+
+        private RecordingInterceptor(String name, boolean proceed) {
+            this.name = name;
+            this.proceed = proceed;
+        }
+
+        @Override
+        public Mono<Boolean> preHandle(ServerHttpRequest request, ServerHttpResponse response,
+                                       Supplier<SoapEnvelopeSniffer.Result> envelope) {
+            QName payloadRoot = envelope.get().getPayloadRoot();
+            // completes later, on another thread, as a remote call would
+            return Mono.delay(Duration.ofMillis(10))
+                    .doOnNext(tick -> calls.add(name + ".preHandle " + payloadRoot))
+                    .thenReturn(proceed);
+        }
+
+        @Override
+        public Mono<Void> postHandle(ServerHttpRequest request, ServerHttpResponse response,
+                                     Supplier<SoapEnvelopeSniffer.Result> envelope) {
+            return Mono.fromRunnable(() -> {
+                calls.add(name + ".postHandle");
+                response.getHeaders().add("X-Intercepted", name);
+            });
+        }
+    }
+}
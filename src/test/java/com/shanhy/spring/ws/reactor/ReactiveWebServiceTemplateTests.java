@@ -0,0 +1,77 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 验证客户端将 HTTP 500 携带的 SOAP Fault 解析为 SoapFaultClientException，其他错误状态才作为传输异常
+ *
+ * @author shanhy
+ * @date 2026-10-19 11:10
+ */
+class ReactiveWebServiceTemplateTests {
+
+    private static final String FAULT =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<SOAP-ENV:Fault><faultcode>SOAP-ENV:Server</faultcode><faultstring>Endpoint fault</faultstring>" +
+            "</SOAP-ENV:Fault></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private SaajSoapMessageFactory messageFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+    }
+
+    @Test
+    void faultResponse() throws Exception {
+        ReactiveWebServiceTemplate template = newTemplate(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR)
+                .header(HttpHeaders.CONTENT_TYPE, "text/xml;charset=UTF-8")
+                .body(FAULT)
+                .build());
+
+        StepVerifier.create(template.sendAndReceive("http://example.com/ws", null, message -> message, null))
+                .expectErrorSatisfies(ex -> {
+                    assertEquals(SoapFaultClientException.class, ex.getClass());
+                    assertEquals("Endpoint fault", ((SoapFaultClientException) ex).getFaultStringOrReason());
+                })
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void errorResponse() throws Exception {
+        ReactiveWebServiceTemplate template = newTemplate(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .body("Service Unavailable")
+                .build());
+
+        StepVerifier.create(template.sendAndReceive("http://example.com/ws", null, message -> message, null))
+                .expectError(WebServiceTransportException.class)
+                .verify(TIMEOUT);
+    }
+
+    private ReactiveWebServiceTemplate newTemplate(ClientResponse response) throws Exception {
+        ReactiveWebServiceTemplate template = new ReactiveWebServiceTemplate(messageFactory);
+        template.setWebClient(WebClient.builder()
+                .exchangeFunction(request -> Mono.just(response))
+                .build());
+        template.afterPropertiesSet();
+        return template;
+    }
+}
@@ -0,0 +1,96 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.wsdl.WsdlDefinition;
+import org.springframework.ws.wsdl.wsdl11.SimpleWsdl11Definition;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import org.springframework.xml.xsd.XsdSchema;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 验证 WSDL、XSD 的条件 GET 仅在监视定义文件时生效，并以内容哈希作为 ETag
+ *
+ * @author shanhy
+ * @date 2026-10-19 00:10
+ */
+class ReactorMessageDispatcherConditionalGetTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private GenericApplicationContext applicationContext;
+
+    private ReactorMessageDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.destroy();
+        applicationContext.close();
+    }
+
+    @Test
+    void notModifiedWhileWatching() throws Exception {
+        createDispatcher(true);
+
+        for (String path : new String[]{"/ws/echoService.wsdl", "/ws/echoService.wsdl?bundle", "/ws/echo.xsd"}) {
+            MockServerHttpResponse response = get(MockServerHttpRequest.get(path));
+            assertEquals(HttpStatus.OK, statusOf(response));
+            String eTag = response.getHeaders().getETag();
+            assertNotNull(eTag, path);
+            assertNotNull(response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED), path);
+
+            MockServerHttpResponse notModified = get(MockServerHttpRequest.get(path).ifNoneMatch(eTag));
+            assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode(), path);
+
+            MockServerHttpResponse modified = get(MockServerHttpRequest.get(path).ifNoneMatch("\"other\""));
+            assertEquals(HttpStatus.OK, statusOf(modified), path);
+        }
+    }
+
+    @Test
+    void unconditionalWithoutWatching() throws Exception {
+        createDispatcher(false);
+
+        MockServerHttpResponse response = get(MockServerHttpRequest.get("/ws/echoService.wsdl")
+                .ifModifiedSince(System.currentTimeMillis()));
+
+        assertEquals(HttpStatus.OK, statusOf(response));
+        assertNull(response.getHeaders().getETag());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private void createDispatcher(boolean watchDefinitions) {
+        applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("messageFactory", SaajSoapMessageFactory.class);
+        applicationContext.registerBean("echoService", WsdlDefinition.class,
+                () -> new SimpleWsdl11Definition(new ClassPathResource("echo.wsdl", getClass())));
+        applicationContext.registerBean("echo", XsdSchema.class,
+                () -> new SimpleXsdSchema(new ClassPathResource("echo.xsd", getClass())));
+        applicationContext.refresh();
+        dispatcher = new ReactorMessageDispatcher();
+        dispatcher.setWatchDefinitions(watchDefinitions);
+        dispatcher.setApplicationContext(applicationContext);
+    }
+
+    private MockServerHttpResponse get(MockServerHttpRequest.BaseBuilder<?> request) throws Exception {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        dispatcher.doService(request.build(), response).block(TIMEOUT);
+        return response;
+    }
+
+    private static HttpStatus statusOf(MockServerHttpResponse response) {
+        return response.getStatusCode() != null ? response.getStatusCode() : HttpStatus.OK;
+    }
+}
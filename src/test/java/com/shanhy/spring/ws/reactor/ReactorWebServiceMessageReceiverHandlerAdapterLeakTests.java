@@ -0,0 +1,386 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.xml.transform.TransformerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 SOAP 请求在成功、非法 XML、端点异常、中途取消和请求体超限等路径上都释放了全部缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-18 21:10
+ */
+class ReactorWebServiceMessageReceiverHandlerAdapterLeakTests {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<echoRequest xmlns=\"urn:echo\">Hello, reactor</echoRequest></SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final String INVALID_ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final WebServiceMessageReceiver ECHO = messageContext -> {
+        WebServiceMessage request = messageContext.getRequest();
+        TransformerFactory.newInstance().newTransformer()
+                .transform(request.getPayloadSource(), messageContext.getResponse().getPayloadResult());
+    };
+
+    private static final WebServiceMessageReceiver FAILING = messageContext -> {
+        throw new IllegalStateException("Endpoint failed");
+    };
+
+    private static final WebServiceMessageReceiver FAULT = messageContext ->
+            ((SoapMessage) messageContext.getResponse()).getSoapBody()
+                    .addServerOrReceiverFault("Endpoint fault", Locale.ENGLISH);
+
+    /**
+     * The ways a request body is collected.
+     */
+    enum Mode {
+        DEFAULT, INCREMENTAL_PARSING, MEMORY_BUDGET, DISK_SPOOL
+    }
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder responseBody = new StringBuilder();
+
+    private ReactorWebServiceMessageReceiverHandlerAdapter adapter;
+
+    private MemoryBudget memoryBudget;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter = new ReactorWebServiceMessageReceiverHandlerAdapter();
+        adapter.setMessageFactory(messageFactory);
+        adapter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void assertNoLeaks() {
+        bufferFactory.assertNoLeaks();
+        if (memoryBudget != null) {
+            assertEquals(0, memoryBudget.getReserved(), "memory budget still reserved");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void success(Mode mode) throws Exception {
+        configure(mode);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE, true), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(responseBody.toString().contains("Hello, reactor"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void invalidXml(Mode mode) throws Exception {
+        configure(mode);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(INVALID_ENVELOPE, true), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void invalidXmlKeepsDirectMemoryBounded(Mode mode) throws Exception {
+        configure(mode);
+        StringBuilder padding = new StringBuilder();
+        while (padding.length() < 512 * 1024) {
+            padding.append("<!-- padding -->");
+        }
+        String envelope = INVALID_ENVELOPE.replace("<SOAP-ENV:Body>", "<SOAP-ENV:Body>" + padding);
+
+        for (int i = 0; i < 64; i++) {
+            MockServerHttpResponse response = newResponse();
+            adapter.handle(post(envelope, true, 8192), response, ECHO).block(TIMEOUT);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+
+        // 32 MB if the bodies were retained, a few pool chunks otherwise
+        long usedDirectMemory = bufferFactory.getUsedDirectMemory();
+        assertTrue(usedDirectMemory <= 16 * 1024 * 1024, usedDirectMemory + " bytes of direct memory used");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void endpointException(Mode mode) throws Exception {
+        configure(mode);
+        Throwable error = adapter.handle(post(ENVELOPE, true), newResponse(), FAILING)
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block(TIMEOUT);
+
+        assertNotNull(error);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void endpointFault(Mode mode) throws Exception {
+        configure(mode);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE, true), response, FAULT).block(TIMEOUT);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertTrue(responseBody.toString().contains("Endpoint fault"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void cancelMidBody(Mode mode) throws Exception {
+        configure(mode);
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        MockServerHttpRequest request = MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(body.asFlux());
+
+        Disposable subscription = adapter.handle(request, newResponse(), ECHO).subscribe();
+        byte[] bytes = ENVELOPE.getBytes(StandardCharsets.UTF_8);
+        body.tryEmitNext(wrap(bytes, 0, bytes.length / 2)).orThrow();
+        subscription.dispose();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void cancelMidResponse(Mode mode) throws Exception {
+        configure(mode);
+        CountDownLatch writing = new CountDownLatch(1);
+        MockServerHttpResponse response = newResponse();
+        // the client is gone before the body is consumed
+        response.setWriteHandler(body -> {
+            writing.countDown();
+            return Mono.never();
+        });
+
+        Disposable subscription = adapter.handle(post(ENVELOPE, true), response, ECHO).subscribe();
+        assertTrue(writing.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        subscription.dispose();
+    }
+
+    @Test
+    void oversizedDeclaredBody() throws Exception {
+        configure(Mode.MEMORY_BUDGET);
+        memoryBudget.setMaxRequestSize(64);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE, true), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    @Test
+    void oversizedChunkedBody() throws Exception {
+        configure(Mode.MEMORY_BUDGET);
+        memoryBudget.setMaxRequestSize(64);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE, false), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    @Test
+    void spooledBodyReturnsBudget() throws Exception {
+        memoryBudget = new MemoryBudget(64);
+        adapter.setMemoryBudget(memoryBudget);
+        configure(Mode.DISK_SPOOL);
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            padding.append("<!-- padding -->");
+        }
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE.replace("<SOAP-ENV:Body>", "<SOAP-ENV:Body>" + padding), false), response,
+                ECHO).block(TIMEOUT);
+
+        // only the buffer that crossed the spool threshold was held in memory
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(memoryBudget.getPeak() <= 32, "peak of " + memoryBudget.getPeak() + " bytes");
+    }
+
+    @Test
+    void fastInfoset() throws Exception {
+        adapter.setFastInfoset(true);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        FastInfosetCodec.encode(new ByteArrayInputStream(ENVELOPE.getBytes(StandardCharsets.UTF_8)), encoded,
+                TransformerFactory.newInstance().newTransformer());
+        byte[] bytes = encoded.toByteArray();
+        MockServerHttpRequest request = MockServerHttpRequest.post("/ws")
+                .contentType(FastInfosetCodec.APPLICATION_FASTINFOSET)
+                .header(HttpHeaders.ACCEPT, FastInfosetCodec.APPLICATION_FASTINFOSET.toString())
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .body(Flux.range(0, (bytes.length + 31) / 32)
+                        .map(chunk -> wrap(bytes, chunk * 32, Math.min(32, bytes.length - chunk * 32))));
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(request, response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(FastInfosetCodec.isFastInfoset(response.getHeaders().getContentType()));
+        assertTrue(responseBody.toString().contains("Hello, reactor"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void capturedPrefixes(Mode mode) throws Exception {
+        configure(mode);
+        PayloadCaptureStore payloadCaptureStore = new PayloadCaptureStore();
+        payloadCaptureStore.setPredicate(request -> true);
+        payloadCaptureStore.setMaxBodySize(40);
+        adapter.setPayloadCaptureStore(payloadCaptureStore);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(post(ENVELOPE, true), response, ECHO).block(TIMEOUT);
+
+        List<PayloadCapture> captures = payloadCaptureStore.drain();
+        assertEquals(1, captures.size());
+        try (PayloadCapture capture = captures.get(0)) {
+            assertEquals(ENVELOPE.substring(0, 40), capture.getRequest(StandardCharsets.UTF_8));
+            assertEquals(ENVELOPE.length(), capture.getRequestSize());
+            assertEquals(responseBody.substring(0, 40), capture.getResponse(StandardCharsets.UTF_8));
+            assertEquals(responseBody.length(), capture.getResponseSize());
+        }
+    }
+
+    @Test
+    void nonPostMethod() throws Exception {
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.get("/ws").build(), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, response.getStatusCode());
+        assertTrue(responseBody.toString().contains("Method Not Allowed"));
+    }
+
+    @Test
+    void overriddenNonPostMethod() throws Exception {
+        ReactorWebServiceMessageReceiverHandlerAdapter notFoundAdapter =
+                new ReactorWebServiceMessageReceiverHandlerAdapter() {
+
+                    @Override
+                    protected void handleNonPostMethod(ServerHttpRequest request, ServerHttpResponse response,
+                                                       Object handler) {
+                        response.setStatusCode(HttpStatus.NOT_FOUND);
+                    }
+                };
+        notFoundAdapter.setMessageFactory(adapter.getMessageFactory());
+        notFoundAdapter.afterPropertiesSet();
+        MockServerHttpResponse response = newResponse();
+
+        notFoundAdapter.handle(MockServerHttpRequest.get("/ws").build(), response, ECHO).block(TIMEOUT);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("", responseBody.toString());
+    }
+
+    private void configure(Mode mode) throws Exception {
+        switch (mode) {
+            case INCREMENTAL_PARSING:
+                adapter.setIncrementalParsing(true);
+                break;
+            case MEMORY_BUDGET:
+                memoryBudget = new MemoryBudget(1024 * 1024);
+                adapter.setMemoryBudget(memoryBudget);
+                break;
+            case DISK_SPOOL:
+                DiskSpool diskSpool = new DiskSpool(16);
+                diskSpool.setDirectory(spoolDirectory);
+                diskSpool.afterPropertiesSet();
+                adapter.setDiskSpool(diskSpool);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Creates a response whose body is consumed, and released, as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(dataBuffer -> {
+                    responseBody.append(dataBuffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        return response;
+    }
+
+    /**
+     * Creates a request whose body arrives in small chunks, allocated only once it is read.
+     */
+    private MockServerHttpRequest post(String envelope, boolean declareLength) {
+        return post(envelope, declareLength, 32);
+    }
+
+    private MockServerHttpRequest post(String envelope, boolean declareLength, int chunkSize) {
+        byte[] bytes = envelope.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(chunk -> wrap(bytes, chunk * chunkSize, Math.min(chunkSize, bytes.length - chunk * chunkSize)));
+        MockServerHttpRequest.BodyBuilder builder = MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000));
+        if (declareLength) {
+            builder.contentLength(bytes.length);
+        }
+        return builder.body(body);
+    }
+
+    private DataBuffer wrap(byte[] bytes, int offset, int length) {
+        DataBuffer dataBuffer = bufferFactory.allocateBuffer(length);
+        dataBuffer.write(bytes, offset, length);
+        return dataBuffer;
+    }
+}
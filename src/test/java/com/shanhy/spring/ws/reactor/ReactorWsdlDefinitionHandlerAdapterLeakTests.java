@@ -0,0 +1,178 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.wsdl.wsdl11.SimpleWsdl11Definition;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import javax.xml.transform.Source;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 WSDL 在直接渲染、内联 schema、地址转换、文件缓存以及中途取消等路径上都释放了全部缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-18 21:10
+ */
+class ReactorWsdlDefinitionHandlerAdapterLeakTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder responseBody = new StringBuilder();
+
+    private ReactorWsdlDefinitionHandlerAdapter adapter;
+
+    private SimpleWsdl11Definition definition;
+
+    private RenderedFileCache renderedFileCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        definition = new SimpleWsdl11Definition(new ClassPathResource("echo.wsdl", getClass()));
+        definition.afterPropertiesSet();
+        SimpleXsdSchema schema = new SimpleXsdSchema(new ClassPathResource("echo.xsd", getClass()));
+        schema.afterPropertiesSet();
+        adapter = new ReactorWsdlDefinitionHandlerAdapter();
+        adapter.setXsdSchemas(Collections.singletonMap("echo", schema));
+        adapter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (renderedFileCache != null) {
+            renderedFileCache.destroy();
+        }
+        bufferFactory.assertNoLeaks();
+    }
+
+    @Test
+    void definition() throws Exception {
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.get("/echo.wsdl").build(), response, definition).block(TIMEOUT);
+
+        assertTrue(responseBody.toString().contains("EchoService"));
+    }
+
+    @Test
+    void bundle() throws Exception {
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.get("/echo.wsdl?bundle").build(), response, definition).block(TIMEOUT);
+
+        assertTrue(responseBody.toString().contains("echoResponse"));
+        assertFalse(responseBody.toString().contains("schemaLocation"));
+    }
+
+    @Test
+    void bundleSourceEvaluatedOnlyWhenBuilt() throws Exception {
+        AtomicInteger sourceEvaluations = new AtomicInteger();
+        SimpleWsdl11Definition countingDefinition =
+                new SimpleWsdl11Definition(new ClassPathResource("echo.wsdl", getClass())) {
+
+                    @Override
+                    public Source getSource() {
+                        sourceEvaluations.incrementAndGet();
+                        return super.getSource();
+                    }
+                };
+        countingDefinition.afterPropertiesSet();
+        MockServerHttpRequest request = MockServerHttpRequest.get("/echo.wsdl?bundle").build();
+
+        int built = 0;
+        for (int i = 0; i < 3; i++) {
+            // what a conditional bundle GET calls
+            adapter.getLastModified(request, countingDefinition);
+            adapter.getETag(request, countingDefinition);
+            adapter.handle(request, newResponse(), countingDefinition).block(TIMEOUT);
+            if (i == 0) {
+                built = sourceEvaluations.get();
+            }
+        }
+
+        assertEquals(built, sourceEvaluations.get());
+        assertTrue(responseBody.toString().contains("echoResponse"));
+    }
+
+    @Test
+    void transformedLocations() throws Exception {
+        adapter.setTransformLocations(true);
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.get("http://example.com/echo.wsdl").build(), response, definition)
+                .block(TIMEOUT);
+
+        assertTrue(responseBody.toString().contains("http://example.com/ws"));
+    }
+
+    @Test
+    void renderedFile() throws Exception {
+        renderedFileCache = new RenderedFileCache();
+        adapter.setRenderedFileCache(renderedFileCache);
+        adapter.prepareRenderedFile(definition);
+
+        for (int i = 0; i < 2; i++) {
+            adapter.handle(MockServerHttpRequest.get("/echo.wsdl").build(), newResponse(), definition).block(TIMEOUT);
+        }
+
+        assertTrue(responseBody.toString().contains("EchoService"));
+    }
+
+    @Test
+    void nonGetMethod() throws Exception {
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.post("/echo.wsdl").build(), response, definition).block(TIMEOUT);
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, response.getStatusCode());
+    }
+
+    @Test
+    void cancelMidResponse() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        // the client is gone before the body is consumed
+        response.setWriteHandler(body -> {
+            writing.countDown();
+            return Mono.never();
+        });
+
+        Disposable subscription = adapter.handle(MockServerHttpRequest.get("/echo.wsdl").build(), response,
+                definition).subscribe();
+        assertTrue(writing.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        subscription.dispose();
+    }
+
+    /**
+     * Creates a response whose body is consumed, and released, as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(dataBuffer -> {
+                    responseBody.append(dataBuffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        return response;
+    }
+}
@@ -0,0 +1,127 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 XSD 在直接渲染、地址转换、文件缓存以及中途取消等路径上都释放了全部缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-18 21:10
+ */
+class ReactorXsdSchemaHandlerAdapterLeakTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder responseBody = new StringBuilder();
+
+    private ReactorXsdSchemaHandlerAdapter adapter;
+
+    private SimpleXsdSchema schema;
+
+    private RenderedFileCache renderedFileCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = new SimpleXsdSchema(new ClassPathResource("echo.xsd", getClass()));
+        schema.afterPropertiesSet();
+        adapter = new ReactorXsdSchemaHandlerAdapter();
+        adapter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (renderedFileCache != null) {
+            renderedFileCache.destroy();
+        }
+        bufferFactory.assertNoLeaks();
+    }
+
+    @Test
+    void schema() throws Exception {
+        adapter.handle(MockServerHttpRequest.get("/echo.xsd").build(), newResponse(), schema).block(TIMEOUT);
+
+        assertTrue(responseBody.toString().contains("echoRequest"));
+    }
+
+    @Test
+    void transformedSchemaLocations() throws Exception {
+        adapter.setTransformSchemaLocations(true);
+
+        adapter.handle(MockServerHttpRequest.get("http://example.com/echo.xsd").build(), newResponse(), schema)
+                .block(TIMEOUT);
+
+        assertTrue(responseBody.toString().contains("echoRequest"));
+    }
+
+    @Test
+    void renderedFile() throws Exception {
+        renderedFileCache = new RenderedFileCache();
+        adapter.setRenderedFileCache(renderedFileCache);
+        adapter.prepareRenderedFile(schema);
+
+        for (int i = 0; i < 2; i++) {
+            adapter.handle(MockServerHttpRequest.get("/echo.xsd").build(), newResponse(), schema).block(TIMEOUT);
+        }
+
+        assertTrue(responseBody.toString().contains("echoRequest"));
+    }
+
+    @Test
+    void nonGetMethod() throws Exception {
+        MockServerHttpResponse response = newResponse();
+
+        adapter.handle(MockServerHttpRequest.post("/echo.xsd").build(), response, schema).block(TIMEOUT);
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, response.getStatusCode());
+    }
+
+    @Test
+    void cancelMidResponse() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        // the client is gone before the body is consumed
+        response.setWriteHandler(body -> {
+            writing.countDown();
+            return Mono.never();
+        });
+
+        Disposable subscription = adapter.handle(MockServerHttpRequest.get("/echo.xsd").build(), response, schema)
+                .subscribe();
+        assertTrue(writing.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        subscription.dispose();
+    }
+
+    /**
+     * Creates a response whose body is consumed, and released, as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(dataBuffer -> {
+                    responseBody.append(dataBuffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(dataBuffer);
+                })
+                .then());
+        return response;
+    }
+}
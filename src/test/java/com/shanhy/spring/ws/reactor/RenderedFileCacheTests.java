@@ -0,0 +1,99 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 验证失效的渲染文件在最后一个正在输出的响应完成后被删除，且失效前开始渲染的旧内容不会被缓存
+ *
+ * @author shanhy
+ * @date 2026-10-19 00:45
+ */
+class RenderedFileCacheTests {
+
+    private static final RenderedFileCache.Renderer RENDERER =
+            outputStream -> outputStream.write("<definition/>".getBytes(StandardCharsets.UTF_8));
+
+    @TempDir
+    Path directory;
+
+    private final Object definition = new Object();
+
+    private RenderedFileCache renderedFileCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        renderedFileCache = new RenderedFileCache(directory);
+        renderedFileCache.prepare(definition, RENDERER);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        renderedFileCache.destroy();
+    }
+
+    @Test
+    void invalidateDeletesIdleFile() throws Exception {
+        assertEquals(1, countFiles());
+
+        renderedFileCache.invalidate(definition);
+
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void invalidateDefersDeletionUntilWritten() throws Exception {
+        Sinks.Empty<Void> written = Sinks.empty();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        response.setWriteHandler(body -> body.then(written.asMono()));
+        renderedFileCache.write(definition, RENDERER, response).subscribe();
+
+        renderedFileCache.invalidate(definition);
+        assertEquals(1, countFiles());
+
+        written.tryEmitEmpty().orThrow();
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void fileRenderedBeforeInvalidationIsNotCached() throws Exception {
+        Object changed = new Object();
+        AtomicInteger renderings = new AtomicInteger();
+        RenderedFileCache.Renderer renderer = outputStream -> {
+            if (renderings.incrementAndGet() == 1) {
+                outputStream.write("<old/>".getBytes(StandardCharsets.UTF_8));
+                // the definition changes while its previous version is being rendered
+                renderedFileCache.invalidate(changed);
+            } else {
+                outputStream.write("<new/>".getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        MockServerHttpResponse response = new MockServerHttpResponse();
+
+        renderedFileCache.write(changed, renderer, response).block(Duration.ofSeconds(5));
+
+        assertEquals("<new/>", response.getBodyAsString().block(Duration.ofSeconds(5)));
+        assertEquals(2, renderings.get());
+        assertEquals(2, countFiles());
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import reactor.core.publisher.Mono;
+
+import javax.xml.namespace.QName;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证响应大小估算器对键数量有硬上限并淘汰最久未使用的键，且适配器不会仅为选取键而解析请求体
+ *
+ * @author shanhy
+ * @date 2026-10-19 09:40
+ */
+class ResponseSizeEstimatorTests {
+
+    @Test
+    void capsTrackedKeys() {
+        ResponseSizeEstimator estimator = new ResponseSizeEstimator();
+        estimator.setMaxKeys(32);
+
+        for (int i = 0; i < 10_000; i++) {
+            estimator.record("operation-" + i, ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY, 1024);
+        }
+
+        assertTrue(estimator.getTrackedKeys() <= 32, estimator.getTrackedKeys() + " keys tracked");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedKey() {
+        ResponseSizeEstimator estimator = new ResponseSizeEstimator();
+        // two keys per segment; small integers hash to themselves, so 0, 16 and 32 share a segment
+        estimator.setMaxKeys(32);
+        estimator.record(0, ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY, 4096);
+        estimator.record(16, ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY, 4096);
+
+        assertTrue(estimator.estimate(0) > ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY);
+        estimator.record(32, ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY, 4096);
+
+        assertTrue(estimator.estimate(0) > ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY);
+        assertEquals(ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY, estimator.estimate(16));
+        assertTrue(estimator.estimate(32) > ResponseSizeEstimator.DEFAULT_INITIAL_CAPACITY);
+    }
+
+    @Test
+    void keysByOperationUnlessEnvelopeWasSniffed() throws Exception {
+        List<Object> keys = new ArrayList<>();
+        ReactorWebServiceMessageReceiverHandlerAdapter adapter = newAdapter(keys);
+
+        handle(adapter);
+        adapter.setIncrementalParsing(true);
+        handle(adapter);
+
+        assertEquals("/ws", keys.get(0));
+        assertEquals(new QName("urn:echo", "echoRequest"), keys.get(1));
+    }
+
+    private static ReactorWebServiceMessageReceiverHandlerAdapter newAdapter(List<Object> keys) throws Exception {
+        ReactorWebServiceMessageReceiverHandlerAdapter adapter = new ReactorWebServiceMessageReceiverHandlerAdapter() {
+
+            @Override
+            protected Object getResponseSizeKey(ServerHttpRequest request, SoapEnvelopeSniffer.Result envelope) {
+                Object key = super.getResponseSizeKey(request, envelope);
+                keys.add(key);
+                return key;
+            }
+        };
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        adapter.setMessageFactory(messageFactory);
+        adapter.afterPropertiesSet();
+        return adapter;
+    }
+
+    private static void handle(ReactorWebServiceMessageReceiverHandlerAdapter adapter) throws Exception {
+        byte[] envelope = ("<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<SOAP-ENV:Body><echoRequest xmlns=\"urn:echo\"/></SOAP-ENV:Body></SOAP-ENV:Envelope>")
+                .getBytes(StandardCharsets.UTF_8);
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        MockServerHttpRequest request = MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .body(Mono.fromSupplier(() -> bufferFactory.wrap(envelope)));
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body.doOnNext(DataBufferUtils::release).then());
+        WebServiceMessageReceiver endpoint = messageContext -> {
+        };
+
+        adapter.handle(request, response, endpoint).block(Duration.ofSeconds(5));
+    }
+}
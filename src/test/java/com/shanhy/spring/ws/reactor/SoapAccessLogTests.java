@@ -0,0 +1,38 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 验证访问日志在销毁时写完剩余记录后才关闭文件
+ *
+ * @author shanhy
+ * @date 2026-10-19 10:05
+ */
+class SoapAccessLogTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void destroyWritesRemainingRecords() throws Exception {
+        Path file = tempDir.resolve("access.log");
+        SoapAccessLog accessLog = new SoapAccessLog(file);
+
+        for (int i = 0; i < 1000; i++) {
+            accessLog.log("urn:echo", 200, null, 128, 256, 1_000_000L, new InetSocketAddress("127.0.0.1", 40000));
+        }
+        accessLog.destroy();
+        accessLog.destroy();
+
+        assertEquals(1000L, accessLog.getWritten() + accessLog.getDropped());
+        assertEquals(accessLog.getWritten(), Files.readAllLines(file, StandardCharsets.UTF_8).size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 BlockHound 集成把 reactor-netty 事件循环视为非阻塞线程、拒绝其上的阻塞调用，并放行 UUID 生成
+ *
+ * <p>BlockHound instruments the whole JVM, so the build runs this class in its own surefire execution.
+ *
+ * @author shanhy
+ * @date 2026-10-19 13:05
+ */
+class SoapBlockHoundIntegrationTests {
+
+    private final EventLoopWatchdog watchdog = new EventLoopWatchdog();
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockHound.builder().with(new SoapBlockHoundIntegration()).install();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.destroy();
+    }
+
+    @Test
+    void blockingCallOnEventLoopFails() throws Exception {
+        Throwable error = runOn("reactor-http-nio-1", () -> {
+            try (EventLoopWatchdog.Section section = watchdog.enter("GET /ws/echo.wsdl")) {
+                Thread.sleep(1L);
+            }
+        });
+
+        assertTrue(error instanceof BlockingOperationError, String.valueOf(error));
+    }
+
+    @Test
+    void blockingCallOnOtherThreadPasses() throws Exception {
+        Throwable error = runOn("soap-worker-1", () -> Thread.sleep(1L));
+
+        assertNull(error);
+    }
+
+    @Test
+    void randomUuidOnEventLoopPasses() throws Exception {
+        Throwable error = runOn("reactor-http-nio-2", UUID::randomUUID);
+
+        assertNull(error);
+    }
+
+    private static Throwable runOn(String threadName, Work work) throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                work.run();
+            } catch (Throwable ex) {
+                error.set(ex);
+            }
+        }, threadName);
+        thread.start();
+        thread.join();
+        return error.get();
+    }
+
+    @FunctionalInterface
+    private interface Work {
+
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,387 @@
+package com.shanhy.spring.ws.reactor;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.WebServiceMessageReceiver;
+import org.springframework.ws.wsdl.WsdlDefinition;
+import org.springframework.ws.wsdl.wsdl11.SimpleWsdl11Definition;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import org.springframework.xml.xsd.XsdSchema;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import javax.xml.transform.TransformerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 进程内压测：启动 reactor-netty 服务端承载 ReactorMessageDispatcher，以固定到达速率（开环）驱动 SOAP、WSDL、XSD 请求，
+ * 报告延迟分位数、吞吐、堆与直接内存峰值以及事件循环利用率，并与已校准的基线比较
+ *
+ * <p>Excluded from the default build; run it with {@code mvn test -Pload-test}. Requests are issued on a fixed
+ * schedule whether or not earlier ones have completed, and each latency is measured from the moment the request was
+ * due, so time spent queueing in the client or the server is part of it.
+ *
+ * <p>Every run writes its measurements to {@code target/loadtest-report.properties}. A run fails on a regression
+ * only for the metrics that {@code loadtest-baseline.properties} holds a value for; copy the report of a run on the
+ * reference machine into it to calibrate. The rate, durations, connections and tolerance are set with the
+ * {@code loadtest.*} system properties.
+ *
+ * @author shanhy
+ * @date 2026-10-18 21:30
+ */
+class SoapLoadTest {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<echoRequest xmlns=\"urn:echo\">Hello, reactor</echoRequest></SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final WebServiceMessageReceiver ECHO = messageContext -> TransformerFactory.newInstance()
+            .newTransformer()
+            .transform(messageContext.getRequest().getPayloadSource(), messageContext.getResponse().getPayloadResult());
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 1000);
+
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 64);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5L));
+
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 15L));
+
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+
+    private static final String SERVER_LOOP_PREFIX = "loadtest-server";
+
+    private static final Path REPORT = Paths.get("target", "loadtest-report.properties");
+
+    private static final Properties report = new Properties();
+
+    private static GenericApplicationContext applicationContext;
+
+    private static ReactorMessageDispatcher dispatcher;
+
+    private static LoopResources serverLoops;
+
+    private static DisposableServer server;
+
+    private static ConnectionProvider connectionProvider;
+
+    private static HttpClient client;
+
+    private static Properties baseline;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("messageFactory", SaajSoapMessageFactory.class);
+        applicationContext.registerBean("messageReceiver", WebServiceMessageReceiver.class, () -> ECHO);
+        applicationContext.registerBean("echoService", WsdlDefinition.class,
+                () -> new SimpleWsdl11Definition(new ClassPathResource("echo.wsdl", SoapLoadTest.class)));
+        applicationContext.registerBean("echo", XsdSchema.class,
+                () -> new SimpleXsdSchema(new ClassPathResource("echo.xsd", SoapLoadTest.class)));
+        applicationContext.refresh();
+
+        dispatcher = new ReactorMessageDispatcher();
+        dispatcher.setApplicationContext(applicationContext);
+        HttpHandler httpHandler = (request, response) -> {
+            try {
+                return dispatcher.doService(request, response);
+            } catch (Exception ex) {
+                return Mono.error(ex);
+            }
+        };
+        // the server gets event loops of its own, so their utilization is not mixed up with the client's
+        serverLoops = LoopResources.create(SERVER_LOOP_PREFIX);
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .runOn(serverLoops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofSeconds(30))
+                .build();
+        client = HttpClient.create(connectionProvider)
+                .baseUrl("http://127.0.0.1:" + server.port());
+
+        baseline = new Properties();
+        try (InputStream inputStream = SoapLoadTest.class.getResourceAsStream("loadtest-baseline.properties")) {
+            baseline.load(inputStream);
+        }
+    }
+
+    @AfterAll
+    static void stopServer() throws Exception {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (serverLoops != null) {
+            serverLoops.disposeLater().block(Duration.ofSeconds(10));
+        }
+        if (connectionProvider != null) {
+            connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+        }
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+        Files.createDirectories(REPORT.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(REPORT)) {
+            report.store(outputStream, "Latencies in milliseconds, throughput in requests per second, memory in MB, " +
+                    "event-loop utilization as a fraction; offered rate " + RATE + " requests/s over " + CONNECTIONS +
+                    " connections");
+        }
+    }
+
+    @Test
+    void soap() {
+        assertWithinBaseline("soap", () -> client
+                .headers(headers -> headers
+                        .set(HttpHeaderNames.CONTENT_TYPE, "text/xml;charset=UTF-8")
+                        .set("SOAPAction", "\"urn:echo\""))
+                .post()
+                .uri("/webservice")
+                .send(ByteBufFlux.fromString(Mono.just(ENVELOPE)))
+                .responseSingle((response, body) -> body.asString()
+                        .defaultIfEmpty("")
+                        .map(content -> response.status().code())));
+    }
+
+    @Test
+    void wsdl() {
+        assertWithinBaseline("wsdl", () -> get("/webservice/echoService.wsdl"));
+    }
+
+    @Test
+    void wsdlBundle() {
+        assertWithinBaseline("wsdlBundle", () -> get("/webservice/echoService.wsdl?bundle"));
+    }
+
+    @Test
+    void xsd() {
+        assertWithinBaseline("xsd", () -> get("/webservice/echo.xsd"));
+    }
+
+    private static Mono<Integer> get(String uri) {
+        return client.get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.asString()
+                        .defaultIfEmpty("")
+                        .map(content -> response.status().code()));
+    }
+
+    private static void assertWithinBaseline(String scenario, Supplier<Mono<Integer>> call) {
+        drive(call, WARMUP);
+        Measurement measurement = drive(call, DURATION);
+        Map<String, Double> metrics = new HashMap<>();
+        metrics.put("p50Millis", measurement.percentile(0.5) / 1_000_000d);
+        metrics.put("p99Millis", measurement.percentile(0.99) / 1_000_000d);
+        metrics.put("p999Millis", measurement.percentile(0.999) / 1_000_000d);
+        metrics.put("throughput", measurement.count() / (DURATION.toNanos() / 1_000_000_000d));
+        metrics.put("peakHeapMB", measurement.peakHeapBytes.get() / (1024d * 1024d));
+        metrics.put("peakDirectMB", measurement.peakDirectBytes.get() / (1024d * 1024d));
+        metrics.put("eventLoopUtilization", measurement.eventLoopUtilization);
+        metrics.forEach((metric, value) ->
+                report.setProperty(scenario + "." + metric, String.format(Locale.ROOT, "%.3f", value)));
+        System.out.printf(Locale.ROOT, "%s: %d requests at %d/s offered, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, " +
+                        "%.0f requests/s, peak heap %.1f MB, peak direct %.1f MB, event loops %.0f%% busy%n",
+                scenario, measurement.count(), RATE, metrics.get("p50Millis"), metrics.get("p99Millis"),
+                metrics.get("p999Millis"), metrics.get("throughput"), metrics.get("peakHeapMB"),
+                metrics.get("peakDirectMB"), metrics.get("eventLoopUtilization") * 100);
+
+        assertEquals(0, measurement.failures.sum(), scenario + " requests failed");
+        // throughput must not fall below its baseline, the other metrics must not exceed theirs
+        for (String metric : new String[]{"p99Millis", "p999Millis", "peakDirectMB", "throughput"}) {
+            String value = baseline.getProperty(scenario + "." + metric);
+            if (value == null) {
+                // not calibrated yet
+                continue;
+            }
+            double expected = Double.parseDouble(value);
+            double actual = metrics.get(metric);
+            if ("throughput".equals(metric)) {
+                assertTrue(actual >= expected * (1 - TOLERANCE), String.format(Locale.ROOT,
+                        "%s throughput %.0f/s is below the baseline of %.0f/s", scenario, actual, expected));
+            } else {
+                assertTrue(actual <= expected * (1 + TOLERANCE), String.format(Locale.ROOT,
+                        "%s %s %.2f exceeds the baseline of %.2f", scenario, metric, actual, expected));
+            }
+        }
+    }
+
+    /**
+     * Issues the given call at the configured rate for the given duration, without waiting for earlier calls to
+     * complete, while sampling the memory in use.
+     */
+    private static Measurement drive(Supplier<Mono<Integer>> call, Duration duration) {
+        Measurement measurement = new Measurement();
+        long periodNanos = Math.max(1L, 1_000_000_000L / RATE);
+        long requests = duration.toNanos() / periodNanos;
+        Disposable sampler = Flux.interval(Duration.ZERO, Duration.ofMillis(50), Schedulers.single())
+                .subscribe(tick -> measurement.sampleMemory());
+        EventLoopClock eventLoopClock = new EventLoopClock();
+        long start = System.nanoTime();
+        try {
+            Flux.interval(Duration.ofNanos(periodNanos), Schedulers.parallel())
+                    .take(requests)
+                    .flatMap(tick -> {
+                        // latency counts from when the request was due, not from when it could be sent
+                        long due = start + (tick + 1) * periodNanos;
+                        return call.get()
+                                .doOnNext(status -> measurement.record(status, System.nanoTime() - due))
+                                .onErrorResume(ex -> {
+                                    measurement.failures.increment();
+                                    return Mono.empty();
+                                });
+                    }, Integer.MAX_VALUE)
+                    .blockLast(duration.plusSeconds(30));
+        } finally {
+            sampler.dispose();
+        }
+        measurement.eventLoopUtilization = eventLoopClock.utilization();
+        if (measurement.count() == 0) {
+            fail("No request completed");
+        }
+        return measurement;
+    }
+
+    /**
+     * Measures the share of wall-clock time the server event loops spent on the CPU.
+     */
+    private static final class EventLoopClock {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        private final long startNanos = System.nanoTime();
+
+        private final Map<Long, Long> startCpuNanos = cpuNanos();
+
+        private double utilization() {
+            long wallNanos = System.nanoTime() - startNanos;
+            Map<Long, Long> endCpuNanos = cpuNanos();
+            if (endCpuNanos.isEmpty() || wallNanos <= 0) {
+                return 0d;
+            }
+            long busyNanos = 0;
+            for (Map.Entry<Long, Long> entry : endCpuNanos.entrySet()) {
+                busyNanos += entry.getValue() - startCpuNanos.getOrDefault(entry.getKey(), 0L);
+            }
+            return busyNanos / ((double) wallNanos * endCpuNanos.size());
+        }
+
+        private Map<Long, Long> cpuNanos() {
+            Map<Long, Long> cpuNanos = new HashMap<>();
+            if (!threads.isThreadCpuTimeSupported()) {
+                return cpuNanos;
+            }
+            for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+                if (thread != null && thread.getThreadName().startsWith(SERVER_LOOP_PREFIX)) {
+                    long time = threads.getThreadCpuTime(thread.getThreadId());
+                    if (time >= 0) {
+                        cpuNanos.put(thread.getThreadId(), time);
+                    }
+                }
+            }
+            return cpuNanos;
+        }
+    }
+
+    private static final class Measurement {
+
+        private final List<long[]> chunks = new ArrayList<>();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+
+        private final AtomicLong peakDirectBytes = new AtomicLong();
+
+        private double eventLoopUtilization;
+
+        private long[] current = new long[8192];
+
+        private int position;
+
+        private int count;
+
+        private synchronized void record(int status, long latencyNanos) {
+            if (status != 200) {
+                failures.increment();
+                return;
+            }
+            if (position == current.length) {
+                chunks.add(current);
+                current = new long[current.length];
+                position = 0;
+            }
+            current[position++] = latencyNanos;
+            count++;
+        }
+
+        private void sampleMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            peakHeapBytes.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+            // netty's pooled arenas, which hold the request and response buffers of both server and client
+            peakDirectBytes.accumulateAndGet(PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory(), Math::max);
+        }
+
+        private synchronized int count() {
+            return count;
+        }
+
+        private synchronized long percentile(double percentile) {
+            long[] latencies = new long[count];
+            int offset = 0;
+            for (long[] chunk : chunks) {
+                System.arraycopy(chunk, 0, latencies, offset, chunk.length);
+                offset += chunk.length;
+            }
+            System.arraycopy(current, 0, latencies, offset, position);
+            Arrays.sort(latencies);
+            return latencies[Math.max(0, Math.min(count - 1, (int) Math.ceil(percentile * count) - 1))];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 SOAP 代理在 payload 根元素被拆分到多个缓冲区时仍能按其路由并完整转发请求体，未匹配时交给本地处理，
+ * 超出嗅探上限时以 413 拒绝，且各路径都释放了全部缓冲区
+ *
+ * @author shanhy
+ * @date 2026-10-19 14:30
+ */
+class SoapProxyTests {
+
+    private static final String ENVELOPE =
+            "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>" +
+            "<echoRequest xmlns=\"urn:echo\">Hello, reactor</echoRequest></SOAP-ENV:Body>" +
+            "</SOAP-ENV:Envelope>";
+
+    private static final URI BACKEND = URI.create("http://backend.example.com/ws");
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final LeakTrackingDataBufferFactory bufferFactory = new LeakTrackingDataBufferFactory();
+
+    private final StringBuilder forwardedBody = new StringBuilder();
+
+    private final StringBuilder localBody = new StringBuilder();
+
+    private URI forwardedTarget;
+
+    private SoapProxy proxy;
+
+    @BeforeEach
+    void setUp() {
+        proxy = new SoapProxy() {
+            @Override
+            protected Mono<Void> forward(URI target, ServerHttpRequest request, ServerHttpResponse response,
+                                         Flux<DataBuffer> body) {
+                forwardedTarget = target;
+                return consume(body, forwardedBody).then(response.setComplete());
+            }
+        };
+        proxy.setPayloadRootRoutes(Collections.singletonMap(new QName("urn:echo", "echoRequest"), BACKEND));
+    }
+
+    @AfterEach
+    void assertNoLeaks() {
+        bufferFactory.assertNoLeaks();
+    }
+
+    @Test
+    void payloadRootSplitAcrossBuffersIsRouted() {
+        // splits the payload root start tag, and every other tag, across buffers
+        proxy.route(post(ENVELOPE, 7), newResponse(), localHandler()).block(TIMEOUT);
+
+        assertEquals(BACKEND, forwardedTarget);
+        assertEquals(ENVELOPE, forwardedBody.toString());
+        assertEquals("", localBody.toString());
+    }
+
+    @Test
+    void unmatchedPayloadRootIsHandledLocally() {
+        String envelope = ENVELOPE.replace("echoRequest", "pingRequest");
+
+        proxy.route(post(envelope, 7), newResponse(), localHandler()).block(TIMEOUT);
+
+        assertNull(forwardedTarget);
+        assertEquals(envelope, localBody.toString());
+    }
+
+    @Test
+    void payloadRootBeyondLimitIsRejected() {
+        proxy.setMaxSniffSize(256);
+        StringBuilder header = new StringBuilder("<SOAP-ENV:Header>");
+        while (header.length() < 1024) {
+            header.append("<!-- padding -->");
+        }
+        header.append("</SOAP-ENV:Header>");
+        String envelope = ENVELOPE.replace("<SOAP-ENV:Body>", header + "<SOAP-ENV:Body>");
+        MockServerHttpResponse response = newResponse();
+
+        proxy.route(post(envelope, 64), response, localHandler()).block(TIMEOUT);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        assertNull(forwardedTarget);
+        assertEquals("", localBody.toString());
+    }
+
+    private Function<ServerHttpRequest, Mono<Void>> localHandler() {
+        return request -> consume(request.getBody(), localBody);
+    }
+
+    private static Mono<Void> consume(Flux<DataBuffer> body, StringBuilder content) {
+        return body.doOnNext(dataBuffer -> {
+            content.append(dataBuffer.toString(StandardCharsets.UTF_8));
+            DataBufferUtils.release(dataBuffer);
+        }).then();
+    }
+
+    /**
+     * Creates a response whose body is released as it is written.
+     */
+    private MockServerHttpResponse newResponse() {
+        MockServerHttpResponse response = new MockServerHttpResponse(bufferFactory);
+        response.setWriteHandler(body -> body
+                .doOnNext(DataBufferUtils::release)
+                .then());
+        return response;
+    }
+
+    /**
+     * Creates a request whose body arrives in chunks of the given size, allocated only once it is read.
+     */
+    private MockServerHttpRequest post(String envelope, int chunkSize) {
+        byte[] bytes = envelope.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(chunk -> {
+                    int length = Math.min(chunkSize, bytes.length - chunk * chunkSize);
+                    DataBuffer dataBuffer = bufferFactory.allocateBuffer(length);
+                    dataBuffer.write(bytes, chunk * chunkSize, length);
+                    return dataBuffer;
+                });
+        return MockServerHttpRequest.post("/ws")
+                .contentType(MediaType.TEXT_XML)
+                .body(body);
+    }
+}
@@ -0,0 +1,67 @@
+package com.shanhy.spring.ws.reactor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import org.springframework.xml.xsd.XsdSchema;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 验证内联 include 的 schema 时，其 import 被放在首个声明之前，并返回被内联的 schema
+ *
+ * @author shanhy
+ * @date 2026-10-18 23:55
+ */
+class WsdlBundleBuilderTests {
+
+    private static final String DEFINITION =
+            "<wsdl:definitions xmlns:wsdl=\"http://schemas.xmlsoap.org/wsdl/\"><wsdl:types>" +
+            "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:a\">" +
+            "<xs:include schemaLocation=\"b.xsd\"/><xs:element name=\"a\" type=\"xs:string\"/>" +
+            "</xs:schema></wsdl:types></wsdl:definitions>";
+
+    private static final String INCLUDED_SCHEMA =
+            "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:a\">" +
+            "<xs:import namespace=\"urn:c\"/><xs:element name=\"b\" type=\"xs:string\"/></xs:schema>";
+
+    @Test
+    void includedImportsPrecedeDeclarations() throws Exception {
+        SimpleXsdSchema includedSchema = new SimpleXsdSchema(
+                new ByteArrayResource(INCLUDED_SCHEMA.getBytes(StandardCharsets.UTF_8)));
+        includedSchema.afterPropertiesSet();
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        Document document = documentBuilderFactory.newDocumentBuilder()
+                .parse(new InputSource(new StringReader(DEFINITION)));
+
+        Collection<XsdSchema> inlinedSchemas = new WsdlBundleBuilder(TransformerFactory.newInstance().newTransformer(),
+                Collections.singletonMap("b", includedSchema)).bundle(document);
+
+        Element schema = (Element) document.getElementsByTagNameNS(XMLConstants.W3C_XML_SCHEMA_NS_URI, "schema")
+                .item(0);
+        List<String> children = new ArrayList<>();
+        for (Node child = schema.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                children.add(child.getLocalName() + ':' + ((Element) child).getAttribute("name"));
+            }
+        }
+        assertEquals(Arrays.asList("import:", "element:a", "element:b"), children);
+        assertEquals(Collections.singletonList(includedSchema), new ArrayList<>(inlinedSchemas));
+    }
+}